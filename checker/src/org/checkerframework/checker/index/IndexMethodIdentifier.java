@@ -1,9 +1,8 @@
 package org.checkerframework.checker.index;
 
 import com.sun.source.tree.Tree;
-import java.util.List;
 import javax.annotation.processing.ProcessingEnvironment;
-import javax.lang.model.element.ExecutableElement;
+import org.checkerframework.javacutil.MethodInvocationMatcher;
 import org.checkerframework.javacutil.TreeUtils;
 
 /**
@@ -12,49 +11,54 @@ import org.checkerframework.javacutil.TreeUtils;
  */
 public class IndexMethodIdentifier {
 
-    private final ExecutableElement fcnRandom;
-    private final ExecutableElement fcnNextDouble;
-    private final ExecutableElement fcnNextInt;
+    private final MethodInvocationMatcher fcnRandom;
+    private final MethodInvocationMatcher fcnNextDouble;
+    private final MethodInvocationMatcher fcnNextInt;
 
-    private final List<ExecutableElement> mathMinMethods;
-    private final List<ExecutableElement> mathMaxMethods;
+    private final MethodInvocationMatcher mathMinMethods;
+    private final MethodInvocationMatcher mathMaxMethods;
 
     public IndexMethodIdentifier(ProcessingEnvironment processingEnv) {
-        fcnRandom = TreeUtils.getMethod("java.lang.Math", "random", 0, processingEnv);
-        fcnNextDouble = TreeUtils.getMethod("java.util.Random", "nextDouble", 0, processingEnv);
-        fcnNextInt = TreeUtils.getMethod("java.util.Random", "nextInt", 1, processingEnv);
+        fcnRandom =
+                new MethodInvocationMatcher(
+                        processingEnv,
+                        TreeUtils.getMethod("java.lang.Math", "random", processingEnv));
+        fcnNextDouble =
+                new MethodInvocationMatcher(
+                        processingEnv,
+                        TreeUtils.getMethod("java.util.Random", "nextDouble", processingEnv));
+        fcnNextInt =
+                new MethodInvocationMatcher(
+                        processingEnv,
+                        TreeUtils.getMethod("java.util.Random", "nextInt", processingEnv, "int"));
 
-        mathMinMethods = TreeUtils.getMethodList("java.lang.Math", "min", 2, processingEnv);
-        mathMaxMethods = TreeUtils.getMethodList("java.lang.Math", "max", 2, processingEnv);
+        mathMinMethods =
+                new MethodInvocationMatcher(
+                        processingEnv,
+                        TreeUtils.getMethodList("java.lang.Math", "min", 2, processingEnv));
+        mathMaxMethods =
+                new MethodInvocationMatcher(
+                        processingEnv,
+                        TreeUtils.getMethodList("java.lang.Math", "max", 2, processingEnv));
     }
 
     public boolean isMathMin(Tree methodTree, ProcessingEnvironment processingEnv) {
-        return isInvocationOfOne(methodTree, processingEnv, mathMinMethods);
+        return mathMinMethods.matches(methodTree);
     }
 
     public boolean isMathMax(Tree methodTree, ProcessingEnvironment processingEnv) {
-        return isInvocationOfOne(methodTree, processingEnv, mathMaxMethods);
-    }
-
-    private static boolean isInvocationOfOne(
-            Tree methodTree, ProcessingEnvironment processingEnv, List<ExecutableElement> methods) {
-        for (ExecutableElement minMethod : methods) {
-            if (TreeUtils.isMethodInvocation(methodTree, minMethod, processingEnv)) {
-                return true;
-            }
-        }
-        return false;
+        return mathMaxMethods.matches(methodTree);
     }
 
     public boolean isMathRandom(Tree tree, ProcessingEnvironment processingEnv) {
-        return TreeUtils.isMethodInvocation(tree, fcnRandom, processingEnv);
+        return fcnRandom.matches(tree);
     }
 
     public boolean isRandomNextDouble(Tree tree, ProcessingEnvironment processingEnv) {
-        return TreeUtils.isMethodInvocation(tree, fcnNextDouble, processingEnv);
+        return fcnNextDouble.matches(tree);
     }
 
     public boolean isRandomNextInt(Tree tree, ProcessingEnvironment processingEnv) {
-        return TreeUtils.isMethodInvocation(tree, fcnNextInt, processingEnv);
+        return fcnNextInt.matches(tree);
     }
 }
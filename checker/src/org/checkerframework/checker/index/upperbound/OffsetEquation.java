@@ -4,6 +4,7 @@ import com.sun.source.util.TreePath;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import org.checkerframework.checker.index.IndexUtil;
 import org.checkerframework.dataflow.analysis.FlowExpressions;
@@ -17,22 +18,42 @@ import org.checkerframework.framework.util.FlowExpressionParseUtil.FlowExpressio
 import org.checkerframework.framework.util.FlowExpressionParseUtil.FlowExpressionParseException;
 import org.checkerframework.framework.util.PluginUtil;
 import org.checkerframework.framework.util.dependenttypes.DependentTypesError;
+import org.checkerframework.javacutil.CollectionUtils;
 import org.checkerframework.javacutil.TreeUtils;
 
 /**
  * An offset equation is 2 sets of Java expression strings, one set of added terms and one set of
  * subtracted terms, and a single int value. The Java expression strings have been standardized and
  * viewpoint adapted.
+ *
+ * <p>Offset equations are immutable once they have been returned by one of the factory methods or
+ * by an operation on an existing equation, so they may be shared freely. {@link #intern} returns a
+ * canonical instance for equal equations, which lets {@link UBQualifier}s share their offsets.
  */
 public class OffsetEquation {
     public static final OffsetEquation ZERO = createOffsetForInt(0);
     public static final OffsetEquation NEG_1 = createOffsetForInt(-1);
     public static final OffsetEquation ONE = createOffsetForInt(1);
+
+    private static final int INTERN_CACHE_SIZE = 500;
+
+    /** Canonical instances of offset equations; see {@link #intern(OffsetEquation)}. */
+    private static final Map<OffsetEquation, OffsetEquation> internedEquations =
+            Collections.synchronizedMap(
+                    CollectionUtils.<OffsetEquation, OffsetEquation>createLRUCache(
+                            INTERN_CACHE_SIZE));
+
     private final List<String> addedTerms;
     private final List<String> subtractedTerms;
     private String error = null;
     private int intValue = 0;
 
+    /** Memoized result of {@link #hashCode()}; 0 if not yet computed. */
+    private int hashCode = 0;
+
+    /** Memoized result of {@link #toString()}; null if not yet computed. */
+    private String stringValue = null;
+
     private OffsetEquation() {
         addedTerms = new ArrayList<>();
         subtractedTerms = new ArrayList<>();
@@ -67,27 +88,63 @@ public class OffsetEquation {
         if (intValue != that.intValue) {
             return false;
         }
-        if (!addedTerms.containsAll(that.addedTerms) || !that.addedTerms.containsAll(addedTerms)) {
+        if (!sameTerms(addedTerms, that.addedTerms)
+                || !sameTerms(subtractedTerms, that.subtractedTerms)) {
             return false;
         }
-        if (!subtractedTerms.containsAll(that.subtractedTerms)
-                || !that.subtractedTerms.containsAll(subtractedTerms)) {
+        return error != null ? error.equals(that.error) : that.error == null;
+    }
+
+    /**
+     * Returns true if {@code terms1} and {@code terms2} contain the same terms, each the same
+     * number of times, in any order.
+     */
+    private static boolean sameTerms(List<String> terms1, List<String> terms2) {
+        if (terms1.size() != terms2.size()) {
             return false;
         }
-        return error != null ? error.equals(that.error) : that.error == null;
+        if (terms1.equals(terms2)) {
+            return true;
+        }
+        List<String> sorted1 = new ArrayList<>(terms1);
+        List<String> sorted2 = new ArrayList<>(terms2);
+        Collections.sort(sorted1);
+        Collections.sort(sorted2);
+        return sorted1.equals(sorted2);
     }
 
+    /**
+     * The hash code does not depend on the order of the terms, because {@link #equals(Object)}
+     * does not either. Repeated terms are counted once per occurrence, as in equals.
+     */
     @Override
     public int hashCode() {
-        int result = addedTerms.hashCode();
-        result = 31 * result + subtractedTerms.hashCode();
-        result = 31 * result + (error != null ? error.hashCode() : 0);
-        result = 31 * result + intValue;
-        return result;
+        if (hashCode == 0) {
+            int result = 0;
+            for (String term : addedTerms) {
+                result += term.hashCode();
+            }
+            int subtracted = 0;
+            for (String term : subtractedTerms) {
+                subtracted += term.hashCode();
+            }
+            result = 31 * result + subtracted;
+            result = 31 * result + (error != null ? error.hashCode() : 0);
+            result = 31 * result + intValue;
+            hashCode = result;
+        }
+        return hashCode;
     }
 
     @Override
     public String toString() {
+        if (stringValue == null) {
+            stringValue = computeString();
+        }
+        return stringValue;
+    }
+
+    private String computeString() {
         if (addedTerms.isEmpty() && subtractedTerms.isEmpty()) {
             return String.valueOf(intValue);
         }
@@ -236,35 +293,34 @@ public class OffsetEquation {
     }
 
     /**
-     * Standardizes and viewpoint adapts the string terms based us the supplied context.
+     * Returns a copy of this equation whose string terms have been standardized and viewpoint
+     * adapted based on the supplied context.
      *
      * @param context FlowExpressionContext
      * @param scope local scope
      * @param useLocalScope whether or not local scope is used
+     * @return a copy of this equation with standardized and viewpoint-adapted terms
      * @throws FlowExpressionParseException if any term isn't able to be parsed this exception is
-     *     thrown. If this happens, no string terms are changed.
+     *     thrown
      */
-    public void standardizeAndViewpointAdaptExpressions(
+    public OffsetEquation standardizeAndViewpointAdaptExpressions(
             FlowExpressionContext context, TreePath scope, boolean useLocalScope)
             throws FlowExpressionParseException {
-        List<String> newAddterms = new ArrayList<>();
+        OffsetEquation copy = new OffsetEquation(this);
+        copy.addedTerms.clear();
         for (String term : addedTerms) {
             String standardizedTerm =
                     FlowExpressionParseUtil.parse(term, context, scope, useLocalScope).toString();
-            newAddterms.add(standardizedTerm);
+            copy.addedTerms.add(standardizedTerm);
         }
 
-        List<String> newSubTerms = new ArrayList<>();
+        copy.subtractedTerms.clear();
         for (String term : subtractedTerms) {
             String standardizedTerm =
                     FlowExpressionParseUtil.parse(term, context, scope, useLocalScope).toString();
-            newSubTerms.add(standardizedTerm);
+            copy.subtractedTerms.add(standardizedTerm);
         }
-
-        addedTerms.clear();
-        addedTerms.addAll(newAddterms);
-        subtractedTerms.clear();
-        subtractedTerms.addAll(newSubTerms);
+        return copy;
     }
 
     /**
@@ -303,6 +359,24 @@ public class OffsetEquation {
         intValue += value;
     }
 
+    /**
+     * Returns the canonical instance of an offset equation equal to {@code eq}. Equations are
+     * immutable, so the canonical instance may be shared by any number of qualifiers.
+     *
+     * @param eq an offset equation
+     * @return the canonical offset equation that is equal to eq
+     */
+    public static OffsetEquation intern(OffsetEquation eq) {
+        synchronized (internedEquations) {
+            OffsetEquation interned = internedEquations.get(eq);
+            if (interned == null) {
+                internedEquations.put(eq, eq);
+                return eq;
+            }
+            return interned;
+        }
+    }
+
     /**
      * Returns the offset equation that is an int value or null if there isn't one.
      *
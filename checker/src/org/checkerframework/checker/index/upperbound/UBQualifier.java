@@ -20,6 +20,7 @@ import org.checkerframework.dataflow.cfg.node.Node;
 import org.checkerframework.framework.type.AnnotatedTypeMirror;
 import org.checkerframework.framework.util.AnnotationBuilder;
 import org.checkerframework.javacutil.AnnotationUtils;
+import org.checkerframework.javacutil.CollectionUtils;
 import org.checkerframework.javacutil.Pair;
 
 /**
@@ -31,9 +32,16 @@ import org.checkerframework.javacutil.Pair;
  * <p>{@link LTLengthOf} is modeled by {@link LessThanLengthOf}. {@link LTEqLengthOf} is equivalent
  * to @{@link LessThanLengthOf} with an offset of -1. {@link LTOMLengthOf} is equivalent to @{@link
  * LessThanLengthOf} with an offset of 1.
+ *
+ * <p>Qualifiers are immutable. {@link LessThanLengthOf} qualifiers and their {@link
+ * OffsetEquation}s are interned. {@link UpperBoundAnnotatedTypeFactory} memoizes both the parse of
+ * an annotation and the conversion of a qualifier back to an annotation, so that a round trip
+ * through the qualifier hierarchy does not re-parse or rebuild annotations.
  */
 public abstract class UBQualifier {
 
+    private static final int CACHE_SIZE = 500;
+
     public static UBQualifier createUBQualifier(AnnotationMirror am) {
         if (AnnotationUtils.areSameByClass(am, UpperBoundUnknown.class)) {
             return UpperBoundUnknownQualifier.UNKNOWN;
@@ -97,7 +105,7 @@ public abstract class UBQualifier {
         Map<String, Set<OffsetEquation>> map = new HashMap<>();
         if (offsets.isEmpty()) {
             for (String array : arrays) {
-                map.put(array, Collections.singleton(OffsetEquation.ZERO));
+                map.put(array, Collections.singleton(OffsetEquation.intern(OffsetEquation.ZERO)));
             }
         } else {
             assert arrays.size() == offsets.size();
@@ -113,10 +121,10 @@ public abstract class UBQualifier {
                 if (eq.hasError()) {
                     return UpperBoundUnknownQualifier.UNKNOWN;
                 }
-                set.add(eq);
+                set.add(OffsetEquation.intern(eq));
             }
         }
-        return new LessThanLengthOf(map);
+        return LessThanLengthOf.create(map);
     }
 
     /**
@@ -213,6 +221,15 @@ public abstract class UBQualifier {
     }
 
     static class LessThanLengthOf extends UBQualifier {
+        /** Canonical instances of qualifiers, keyed by their map from arrays to offsets. */
+        private static final Map<Map<String, Set<OffsetEquation>>, LessThanLengthOf>
+                internedQualifiers =
+                        Collections.synchronizedMap(
+                                CollectionUtils
+                                        .<Map<String, Set<OffsetEquation>>, LessThanLengthOf>
+                                                createLRUCache(CACHE_SIZE));
+
+        /** Unmodifiable map from arrays to unmodifiable sets of interned offsets. */
         private final Map<String, Set<OffsetEquation>> map;
 
         private LessThanLengthOf(Map<String, Set<OffsetEquation>> map) {
@@ -220,6 +237,28 @@ public abstract class UBQualifier {
             this.map = map;
         }
 
+        /**
+         * Returns the canonical qualifier for the given map from arrays to offsets. The map and its
+         * sets are owned by the returned qualifier afterwards, so callers must not modify them.
+         *
+         * @param map non-empty map from arrays to offsets
+         * @return the canonical qualifier for map
+         */
+        private static LessThanLengthOf create(Map<String, Set<OffsetEquation>> map) {
+            for (Entry<String, Set<OffsetEquation>> entry : map.entrySet()) {
+                entry.setValue(Collections.unmodifiableSet(entry.getValue()));
+            }
+            Map<String, Set<OffsetEquation>> frozen = Collections.unmodifiableMap(map);
+            synchronized (internedQualifiers) {
+                LessThanLengthOf qualifier = internedQualifiers.get(frozen);
+                if (qualifier == null) {
+                    qualifier = new LessThanLengthOf(frozen);
+                    internedQualifiers.put(frozen, qualifier);
+                }
+                return qualifier;
+            }
+        }
+
         @Override
         public boolean hasArrayWithOffsetNeg1(String array) {
             Set<OffsetEquation> offsets = map.get(array);
@@ -335,6 +374,9 @@ public abstract class UBQualifier {
             }
 
             LessThanLengthOf qualifier = (LessThanLengthOf) o;
+            if (map == qualifier.map) {
+                return true;
+            }
             if (containsSame(map.keySet(), qualifier.map.keySet())) {
                 for (Map.Entry<String, Set<OffsetEquation>> entry : map.entrySet()) {
                     Set<OffsetEquation> otherOffset = qualifier.map.get(entry.getKey());
@@ -467,7 +509,7 @@ public abstract class UBQualifier {
             if (lubMap.isEmpty()) {
                 return UpperBoundUnknownQualifier.UNKNOWN;
             }
-            return new LessThanLengthOf(lubMap);
+            return create(lubMap);
         }
 
         @Override
@@ -476,12 +518,17 @@ public abstract class UBQualifier {
             if (!lub.isLessThanLengthQualifier() || !obj.isLessThanLengthQualifier()) {
                 return lub;
             }
-            Map<String, Set<OffsetEquation>> lubMap = ((LessThanLengthOf) lub).map;
+            // The map of lub is shared, so widen a copy of it.
+            Map<String, Set<OffsetEquation>> lubMap = new HashMap<>();
+            for (Entry<String, Set<OffsetEquation>> entry :
+                    ((LessThanLengthOf) lub).map.entrySet()) {
+                lubMap.put(entry.getKey(), new HashSet<>(entry.getValue()));
+            }
             widenLub((LessThanLengthOf) obj, lubMap);
             if (lubMap.isEmpty()) {
                 return UpperBoundUnknownQualifier.UNKNOWN;
             }
-            return new LessThanLengthOf(lubMap);
+            return create(lubMap);
         }
 
         /**
@@ -564,16 +611,18 @@ public abstract class UBQualifier {
 
             Map<String, Set<OffsetEquation>> glbMap = new HashMap<>();
             for (String array : arrays) {
-                Set<OffsetEquation> glb = map.get(array);
+                Set<OffsetEquation> glb = new HashSet<>();
+                Set<OffsetEquation> thisglb = map.get(array);
                 Set<OffsetEquation> otherglb = otherLtl.map.get(array);
-                if (glb == null) {
-                    glb = otherglb;
-                } else if (otherglb != null) {
+                if (thisglb != null) {
+                    glb.addAll(thisglb);
+                }
+                if (otherglb != null) {
                     glb.addAll(otherglb);
                 }
                 glbMap.put(array, simplifyOffsets(glb));
             }
-            return new LessThanLengthOf(glbMap);
+            return create(glbMap);
         }
 
         /** Keeps only the largest offset equation that is only an int value. */
@@ -847,7 +896,7 @@ public abstract class UBQualifier {
                 for (OffsetEquation eq : entry.getValue()) {
                     OffsetEquation newEq = f.compute(eq);
                     if (newEq != null) {
-                        offsets.add(newEq);
+                        offsets.add(OffsetEquation.intern(newEq));
                     }
                 }
                 if (!offsets.isEmpty()) {
@@ -857,7 +906,7 @@ public abstract class UBQualifier {
             if (newMap.isEmpty()) {
                 return UpperBoundUnknownQualifier.UNKNOWN;
             }
-            return new LessThanLengthOf(newMap);
+            return create(newMap);
         }
     }
 
@@ -15,6 +15,7 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import javax.lang.model.element.AnnotationMirror;
 import javax.lang.model.element.Element;
@@ -67,6 +68,7 @@ import org.checkerframework.framework.util.dependenttypes.DependentTypesError;
 import org.checkerframework.framework.util.dependenttypes.DependentTypesHelper;
 import org.checkerframework.framework.util.dependenttypes.DependentTypesTreeAnnotator;
 import org.checkerframework.javacutil.AnnotationUtils;
+import org.checkerframework.javacutil.CollectionUtils;
 import org.checkerframework.javacutil.TreeUtils;
 
 /**
@@ -80,6 +82,23 @@ public class UpperBoundAnnotatedTypeFactory extends BaseAnnotatedTypeFactory {
 
     private final IndexMethodIdentifier imf;
 
+    private static final int UB_QUALIFIER_CACHE_SIZE = 500;
+
+    /**
+     * Qualifiers that have already been created from an annotation. The map uses {@link
+     * AnnotationMirror#equals(Object)}, which for the compiler's and {@link
+     * org.checkerframework.framework.util.AnnotationBuilder}'s annotations is reference equality,
+     * so equal annotations created separately are parsed again. Most annotations that the
+     * qualifier hierarchy sees were created by {@link
+     * #convertUBQualifierToAnnotation(UBQualifier)}, so this avoids re-parsing them.
+     */
+    private final Map<AnnotationMirror, UBQualifier> parsedAnnotations =
+            CollectionUtils.createLRUCache(UB_QUALIFIER_CACHE_SIZE);
+
+    /** Annotations that have already been created from an interned {@link LessThanLengthOf}. */
+    private final Map<UBQualifier, AnnotationMirror> convertedQualifiers =
+            CollectionUtils.createLRUCache(UB_QUALIFIER_CACHE_SIZE);
+
     public UpperBoundAnnotatedTypeFactory(BaseTypeChecker checker) {
         super(checker);
         UNKNOWN = AnnotationUtils.fromClass(elements, UpperBoundUnknown.class);
@@ -208,8 +227,9 @@ public class UpperBoundAnnotatedTypeFactory extends BaseAnnotatedTypeFactory {
                     return equation.getError();
                 }
                 try {
-                    equation.standardizeAndViewpointAdaptExpressions(
-                            context, localScope, useLocalScope);
+                    equation =
+                            equation.standardizeAndViewpointAdaptExpressions(
+                                    context, localScope, useLocalScope);
                 } catch (FlowExpressionParseUtil.FlowExpressionParseException e) {
                     return new DependentTypesError(expression, e).toString();
                 }
@@ -337,8 +357,8 @@ public class UpperBoundAnnotatedTypeFactory extends BaseAnnotatedTypeFactory {
 
         @Override
         public AnnotationMirror greatestLowerBound(AnnotationMirror a1, AnnotationMirror a2) {
-            UBQualifier a1Obj = UBQualifier.createUBQualifier(a1);
-            UBQualifier a2Obj = UBQualifier.createUBQualifier(a2);
+            UBQualifier a1Obj = getUBQualifier(a1);
+            UBQualifier a2Obj = getUBQualifier(a2);
             UBQualifier glb = a1Obj.glb(a2Obj);
             return convertUBQualifierToAnnotation(glb);
         }
@@ -352,16 +372,16 @@ public class UpperBoundAnnotatedTypeFactory extends BaseAnnotatedTypeFactory {
          */
         @Override
         public AnnotationMirror leastUpperBound(AnnotationMirror a1, AnnotationMirror a2) {
-            UBQualifier a1Obj = UBQualifier.createUBQualifier(a1);
-            UBQualifier a2Obj = UBQualifier.createUBQualifier(a2);
+            UBQualifier a1Obj = getUBQualifier(a1);
+            UBQualifier a2Obj = getUBQualifier(a2);
             UBQualifier lub = a1Obj.lub(a2Obj);
             return convertUBQualifierToAnnotation(lub);
         }
 
         @Override
         public AnnotationMirror widenUpperBound(AnnotationMirror a, AnnotationMirror b) {
-            UBQualifier a1Obj = UBQualifier.createUBQualifier(a);
-            UBQualifier a2Obj = UBQualifier.createUBQualifier(b);
+            UBQualifier a1Obj = getUBQualifier(a);
+            UBQualifier a2Obj = getUBQualifier(b);
             UBQualifier lub = a1Obj.widenUpperBound(a2Obj);
             return convertUBQualifierToAnnotation(lub);
         }
@@ -380,8 +400,8 @@ public class UpperBoundAnnotatedTypeFactory extends BaseAnnotatedTypeFactory {
          */
         @Override
         public boolean isSubtype(AnnotationMirror subAnno, AnnotationMirror superAnno) {
-            UBQualifier subtype = UBQualifier.createUBQualifier(subAnno);
-            UBQualifier supertype = UBQualifier.createUBQualifier(superAnno);
+            UBQualifier subtype = getUBQualifier(subAnno);
+            UBQualifier supertype = getUBQualifier(superAnno);
             return subtype.isSubtype(supertype);
         }
     }
@@ -424,7 +444,7 @@ public class UpperBoundAnnotatedTypeFactory extends BaseAnnotatedTypeFactory {
             if (isRandomNextInt(tree)) {
                 AnnotatedTypeMirror argType = getAnnotatedType(tree.getArguments().get(0));
                 AnnotationMirror anno = argType.getAnnotationInHierarchy(UNKNOWN);
-                UBQualifier qualifier = UBQualifier.createUBQualifier(anno);
+                UBQualifier qualifier = getUBQualifier(anno);
                 qualifier = qualifier.plusOffset(1);
                 type.replaceAnnotation(convertUBQualifierToAnnotation(qualifier));
             }
@@ -655,7 +675,29 @@ public class UpperBoundAnnotatedTypeFactory extends BaseAnnotatedTypeFactory {
             return POLY;
         }
 
-        LessThanLengthOf ltlQualifier = (LessThanLengthOf) qualifier;
-        return ltlQualifier.convertToAnnotationMirror(processingEnv);
+        AnnotationMirror anno = convertedQualifiers.get(qualifier);
+        if (anno == null) {
+            LessThanLengthOf ltlQualifier = (LessThanLengthOf) qualifier;
+            anno = ltlQualifier.convertToAnnotationMirror(processingEnv);
+            convertedQualifiers.put(qualifier, anno);
+            parsedAnnotations.put(anno, qualifier);
+        }
+        return anno;
+    }
+
+    /**
+     * Returns the qualifier that {@code anno} represents. Unlike {@link
+     * UBQualifier#createUBQualifier(AnnotationMirror)}, the result is memoized.
+     *
+     * @param anno an annotation in the Upper Bound hierarchy
+     * @return the qualifier that anno represents
+     */
+    public UBQualifier getUBQualifier(AnnotationMirror anno) {
+        UBQualifier qualifier = parsedAnnotations.get(anno);
+        if (qualifier == null) {
+            qualifier = UBQualifier.createUBQualifier(anno);
+            parsedAnnotations.put(anno, qualifier);
+        }
+        return qualifier;
     }
 }
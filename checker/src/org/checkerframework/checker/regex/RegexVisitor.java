@@ -16,6 +16,7 @@ import org.checkerframework.framework.source.Result;
 import org.checkerframework.framework.type.AnnotatedTypeMirror;
 import org.checkerframework.framework.type.AnnotatedTypeMirror.AnnotatedDeclaredType;
 import org.checkerframework.framework.type.AnnotatedTypeMirror.AnnotatedPrimitiveType;
+import org.checkerframework.javacutil.MethodInvocationMatcher;
 import org.checkerframework.javacutil.TreeUtils;
 
 /**
@@ -35,21 +36,24 @@ import org.checkerframework.javacutil.TreeUtils;
  */
 public class RegexVisitor extends BaseTypeVisitor<RegexAnnotatedTypeFactory> {
 
-    private final ExecutableElement matchResultEnd;
-    private final ExecutableElement matchResultGroup;
-    private final ExecutableElement matchResultStart;
+    /** Matches invocations of {@code MatchResult.end}, {@code group}, and {@code start}. */
+    private final MethodInvocationMatcher matchResultGroupAccess;
+
     private final ExecutableElement patternCompile;
     private final VariableElement patternLiteral;
 
     public RegexVisitor(BaseTypeChecker checker) {
         super(checker);
         ProcessingEnvironment env = checker.getProcessingEnvironment();
-        this.matchResultEnd =
-                TreeUtils.getMethod(java.util.regex.MatchResult.class.getName(), "end", 1, env);
-        this.matchResultGroup =
-                TreeUtils.getMethod(java.util.regex.MatchResult.class.getName(), "group", 1, env);
-        this.matchResultStart =
-                TreeUtils.getMethod(java.util.regex.MatchResult.class.getName(), "start", 1, env);
+        this.matchResultGroupAccess =
+                new MethodInvocationMatcher(
+                        env,
+                        TreeUtils.getMethod(
+                                java.util.regex.MatchResult.class.getName(), "end", env, "int"),
+                        TreeUtils.getMethod(
+                                java.util.regex.MatchResult.class.getName(), "group", env, "int"),
+                        TreeUtils.getMethod(
+                                java.util.regex.MatchResult.class.getName(), "start", env, "int"));
         this.patternCompile =
                 TreeUtils.getMethod(java.util.regex.Pattern.class.getName(), "compile", 2, env);
         this.patternLiteral =
@@ -79,9 +83,7 @@ public class RegexVisitor extends BaseTypeVisitor<RegexAnnotatedTypeFactory> {
                     return r;
                 }
             }
-        } else if (TreeUtils.isMethodInvocation(node, matchResultEnd, env)
-                || TreeUtils.isMethodInvocation(node, matchResultGroup, env)
-                || TreeUtils.isMethodInvocation(node, matchResultStart, env)) {
+        } else if (matchResultGroupAccess.matches(node)) {
             /**
              * Case 3: Checks calls to {@code MatchResult.start}, {@code MatchResult.end} and {@code
              * MatchResult.group} to ensure that a valid group number is passed.
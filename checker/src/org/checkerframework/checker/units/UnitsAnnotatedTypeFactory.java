@@ -61,11 +61,11 @@ public class UnitsAnnotatedTypeFactory extends BaseAnnotatedTypeFactory {
      */
     private Map<String, UnitsRelations> unitsRel;
 
-    private static final Map<String, Class<? extends Annotation>> externalQualsMap =
-            new HashMap<String, Class<? extends Annotation>>();
+    // The maps are per factory because their values belong to one compilation. They are created
+    // by createSupportedTypeQualifiers, which may run before the field initializers.
+    private Map<String, Class<? extends Annotation>> externalQualsMap;
 
-    private static final Map<String, AnnotationMirror> aliasMap =
-            new HashMap<String, AnnotationMirror>();
+    private Map<String, AnnotationMirror> aliasMap;
 
     public UnitsAnnotatedTypeFactory(BaseTypeChecker checker) {
         // use true to enable flow inference, false to disable it
@@ -89,6 +89,9 @@ public class UnitsAnnotatedTypeFactory extends BaseAnnotatedTypeFactory {
         String aname = anno.getAnnotationType().toString();
 
         // See if we already have a map from this aliased annotation to its corresponding base unit annotation
+        if (aliasMap == null) {
+            aliasMap = new HashMap<String, AnnotationMirror>();
+        }
         if (aliasMap.containsKey(aname)) {
             // if so return it
             return aliasMap.get(aname);
@@ -153,6 +156,7 @@ public class UnitsAnnotatedTypeFactory extends BaseAnnotatedTypeFactory {
     protected Set<Class<? extends Annotation>> createSupportedTypeQualifiers() {
         // Use the Units Annotated Type Loader instead of the default one
         loader = new UnitsAnnotationClassLoader(checker);
+        externalQualsMap = new HashMap<String, Class<? extends Annotation>>();
 
         // get all the loaded annotations
         Set<Class<? extends Annotation>> qualSet = new HashSet<Class<? extends Annotation>>();
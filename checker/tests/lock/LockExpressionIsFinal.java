@@ -198,17 +198,13 @@ public class LockExpressionIsFinal {
         @GuardedBy("c1.getFieldPure(b ? c1 : o1, c1)")
         Object guarded5;
 
-        // TODO: Fix the flow expression parser so it can handle
-        // @GuardedBy("c1.field.field.field.getFieldPure(c1.field, c1.getFieldDeterministic().getFieldPure(c1, c1.field)).field") Object guarded6;
-        // Currently it fails because the memberselect incorrectly splits the "getFieldPure(...).field" field access into:
-        // "getFieldPure(c1"
-        // and
-        // "field, c1.getFieldDeterministic().getFieldPure(c1, c1.field)).field"
-        // However, as soon as one fixes the flow expression parser to parse a longer expression, one must consider
-        // whether the CFAbstractStore can (or should) store data for the resulting flow expression.
+        // A method call whose arguments contain member selects and calls, followed by a field access.
+        @GuardedBy(
+                "c1.field.field.field.getFieldPure(c1.field, c1.getFieldDeterministic().getFieldPure(c1, c1.field)).field")
+        Object guarded6;
 
         @GuardedBy("c1.field.field.field.getFieldPure2().getFieldDeterministic().field")
-        Object guarded6;
+        Object guarded6b;
 
         // The following negative test cases are the same as the one above but with one modification in each.
 
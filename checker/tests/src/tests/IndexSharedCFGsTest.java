@@ -0,0 +1,24 @@
+package tests;
+
+import java.io.File;
+import java.util.List;
+import org.checkerframework.framework.test.CheckerFrameworkPerDirectoryTest;
+import org.junit.runners.Parameterized.Parameters;
+
+/** JUnit tests for the Index Checker when its subcheckers share their CFGs. */
+public class IndexSharedCFGsTest extends CheckerFrameworkPerDirectoryTest {
+
+    public IndexSharedCFGsTest(List<File> testFiles) {
+        super(
+                testFiles,
+                org.checkerframework.checker.index.IndexChecker.class,
+                "index",
+                "-Anomsgtext",
+                "-AshareCFGs");
+    }
+
+    @Parameters
+    public static String[] getTestDirs() {
+        return new String[] {"index", "all-systems"};
+    }
+}
@@ -0,0 +1,35 @@
+package tests;
+
+import java.io.File;
+import java.util.List;
+import org.checkerframework.checker.nullness.AbstractNullnessChecker;
+import org.checkerframework.framework.test.CheckerFrameworkPerDirectoryTest;
+import org.junit.runners.Parameterized.Parameters;
+
+/**
+ * Runs the tests of {@link NullnessFbcTest} with -AatfIndexTreePaths, so that tree paths found
+ * through the per-compilation-unit index can be compared with those found by scanning.
+ */
+public class NullnessFbcIndexTreePathsTest extends CheckerFrameworkPerDirectoryTest {
+
+    public NullnessFbcIndexTreePathsTest(List<File> testFiles) {
+        // TODO: remove forbidnonnullarraycomponents option once it's no
+        // longer needed.  See issue #986:
+        // https://github.com/typetools/checker-framework/issues/986
+        super(
+                testFiles,
+                org.checkerframework.checker.nullness.NullnessChecker.class,
+                "nullness",
+                "-AcheckPurityAnnotations",
+                "-AatfIndexTreePaths",
+                "-Anomsgtext",
+                "-Xlint:deprecation",
+                "-Alint=forbidnonnullarraycomponents,"
+                        + AbstractNullnessChecker.LINT_REDUNDANTNULLCOMPARISON);
+    }
+
+    @Parameters
+    public static String[] getTestDirs() {
+        return new String[] {"nullness", "initialization/fbc", "all-systems"};
+    }
+}
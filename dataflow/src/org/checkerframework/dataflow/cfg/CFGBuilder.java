@@ -2373,16 +2373,23 @@ public class CFGBuilder {
 
             /* Check for the TerminatesExecution annotation. */
             Element methodElement = InternalUtils.symbol(tree);
-            boolean terminatesExecution =
-                    annotationProvider.getDeclAnnotation(methodElement, TerminatesExecution.class)
-                            != null;
-            if (terminatesExecution) {
+            if (terminatesExecution(methodElement)) {
                 extendedNode.setTerminatesExecution(true);
             }
 
             return node;
         }
 
+        /**
+         * Does an invocation of the given method terminate the execution? By default, this is the
+         * case if the annotation provider finds a {@link TerminatesExecution} annotation on the
+         * method.
+         */
+        protected boolean terminatesExecution(Element methodElement) {
+            return annotationProvider.getDeclAnnotation(methodElement, TerminatesExecution.class)
+                    != null;
+        }
+
         @Override
         public Node visitAssert(AssertTree tree, Void p) {
 
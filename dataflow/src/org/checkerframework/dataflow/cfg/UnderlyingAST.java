@@ -9,6 +9,9 @@ import com.sun.source.tree.Tree;
  * Represents an abstract syntax tree of type {@link Tree} that underlies a given control flow
  * graph.
  *
+ * <p>Two underlying ASTs are equal if they are of the same kind and refer to the same trees, so
+ * underlying ASTs can be used as keys for caches of control flow graphs.
+ *
  * @author Stefan Heule
  */
 public abstract class UnderlyingAST {
@@ -63,6 +66,20 @@ public abstract class UnderlyingAST {
             return classTree;
         }
 
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof CFGMethod)) {
+                return false;
+            }
+            CFGMethod other = (CFGMethod) o;
+            return method == other.method && classTree == other.classTree;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * System.identityHashCode(method) + System.identityHashCode(classTree);
+        }
+
         @Override
         public String toString() {
             return "CFGMethod(\n" + method + "\n)";
@@ -88,6 +105,16 @@ public abstract class UnderlyingAST {
             return lambda;
         }
 
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof CFGLambda && lambda == ((CFGLambda) o).lambda;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(lambda);
+        }
+
         @Override
         public String toString() {
             return "CFGLambda(\n" + lambda + "\n)";
@@ -117,6 +144,20 @@ public abstract class UnderlyingAST {
             return classTree;
         }
 
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof CFGStatement)) {
+                return false;
+            }
+            CFGStatement other = (CFGStatement) o;
+            return code == other.code && classTree == other.classTree;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * System.identityHashCode(code) + System.identityHashCode(classTree);
+        }
+
         @Override
         public String toString() {
             return "CFGStatement(\n" + code + "\n)";
@@ -3,6 +3,7 @@ package org.checkerframework.dataflow.cfg.block;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Base class of the {@link Block} implementation hierarchy.
@@ -14,8 +15,16 @@ public abstract class BlockImpl implements Block {
     /** A unique ID for this node. */
     protected long id = BlockImpl.uniqueID();
 
-    /** The last ID that has already been used. */
-    protected static long lastId = 0;
+    /** The next ID to use. */
+    private static final AtomicLong nextId = new AtomicLong();
+
+    /**
+     * The last ID that has already been used.
+     *
+     * @deprecated IDs are taken from an atomic counter. This field is still updated, but assigning
+     *     it does not change the IDs of new blocks.
+     */
+    @Deprecated protected static long lastId = 0;
 
     /** The type of this basic block. */
     protected BlockType type;
@@ -25,7 +34,9 @@ public abstract class BlockImpl implements Block {
 
     /** @return a fresh identifier */
     private static long uniqueID() {
-        return lastId++;
+        long id = nextId.getAndIncrement();
+        lastId = id + 1;
+        return id;
     }
 
     public BlockImpl() {
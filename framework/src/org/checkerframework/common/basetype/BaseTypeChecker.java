@@ -1,9 +1,6 @@
 package org.checkerframework.common.basetype;
 
 import com.sun.source.util.TreePath;
-import com.sun.tools.javac.processing.JavacProcessingEnvironment;
-import com.sun.tools.javac.util.Context;
-import com.sun.tools.javac.util.Log;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 import java.util.ArrayList;
@@ -25,6 +22,7 @@ import org.checkerframework.dataflow.cfg.CFGVisualizer;
 import org.checkerframework.framework.qual.SubtypeOf;
 import org.checkerframework.framework.source.SourceChecker;
 import org.checkerframework.framework.type.AnnotatedTypeFactory;
+import org.checkerframework.framework.type.DefaultTypeHierarchy;
 import org.checkerframework.framework.type.GenericAnnotatedTypeFactory;
 import org.checkerframework.framework.type.QualifierHierarchy;
 import org.checkerframework.framework.type.TypeHierarchy;
@@ -416,8 +414,8 @@ public abstract class BaseTypeChecker extends SourceChecker implements BaseTypeC
         // If Java has issued errors, don't run any checkers on this compilation unit.
         // If a sub checker issued errors, run the next checker on this compilation unit.
 
-        // Log.nerrors counts the number of Java and checker errors have been issued.
-        // super.typeProcess does not typeProcess if log.nerrors > errorsOnLastExit
+        // getErrorCount() counts the number of Java and checker errors that have been issued.
+        // super.typeProcess does not typeProcess if getErrorCount() > errorsOnLastExit
 
         // In order to run the next checker on this compilation unit even if the previous
         // issued errors, the next checker's errsOnLastExit needs to include all errors
@@ -425,24 +423,51 @@ public abstract class BaseTypeChecker extends SourceChecker implements BaseTypeC
 
         // To prevent any checkers from running if a Java error was issued for this compilation unit,
         // errsOnLastExit should not include any Java errors.
-        Context context = ((JavacProcessingEnvironment) processingEnv).getContext();
-        Log log = Log.instance(context);
         // Start with this.errsOnLastExit which will account for errors seen by
         // by a previous checker run in an aggregate checker.
         int nerrorsOfAllPreviousCheckers = this.errsOnLastExit;
         for (BaseTypeChecker checker : getSubcheckers()) {
             checker.errsOnLastExit = nerrorsOfAllPreviousCheckers;
-            int errorsBeforeTypeChecking = log.nerrors;
+            int errorsBeforeTypeChecking = getErrorCount();
 
             checker.typeProcess(element, tree);
 
-            int errorsAfterTypeChecking = log.nerrors;
+            int errorsAfterTypeChecking = getErrorCount();
             nerrorsOfAllPreviousCheckers += errorsAfterTypeChecking - errorsBeforeTypeChecking;
         }
         this.errsOnLastExit = nerrorsOfAllPreviousCheckers;
         super.typeProcess(element, tree);
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * <p>Also prints how effective the subtype check caches of this checker and its subcheckers
+     * were.
+     */
+    @Override
+    protected void printStats() {
+        super.printStats();
+        printSubtypeCacheStats();
+        for (BaseTypeChecker checker : getSubcheckers()) {
+            checker.printSubtypeCacheStats();
+        }
+    }
+
+    /** Prints how effective the subtype check cache of this checker was. */
+    private void printSubtypeCacheStats() {
+        if (getVisitor() == null) {
+            return;
+        }
+        TypeHierarchy typeHierarchy = getTypeFactory().getTypeHierarchy();
+        if (typeHierarchy instanceof DefaultTypeHierarchy) {
+            System.out.println(
+                    getClass().getSimpleName()
+                            + ": "
+                            + ((DefaultTypeHierarchy) typeHierarchy).getSubtypeCacheStatistics());
+        }
+    }
+
     @Override
     public void typeProcessingOver() {
         for (BaseTypeChecker checker : getSubcheckers()) {
@@ -1804,7 +1804,8 @@ public class BaseTypeVisitor<Factory extends GenericAnnotatedTypeFactory<?, ?, ?
         }
 
         // Use an error key only if it's overridden by a checker.
-        if (!success) {
+        // Formatting the types is expensive, so it is only done if the error is reported.
+        if (!success && !checker.shouldSuppressWarnings(valueTree, errorKey)) {
             String valueTypeString;
             String varTypeString;
             if (shouldPrintVerbose(varType, valueType)) {
@@ -8,12 +8,15 @@ import com.sun.source.tree.ClassTree;
 import com.sun.source.tree.MethodTree;
 import com.sun.source.tree.Tree;
 import com.sun.source.tree.VariableTree;
+import com.sun.source.util.TreePath;
 import com.sun.tools.javac.code.Symbol.ClassSymbol;
 import com.sun.tools.javac.code.Symbol.MethodSymbol;
 import com.sun.tools.javac.code.Symbol.TypeSymbol;
 import com.sun.tools.javac.code.Symbol.VarSymbol;
 import com.sun.tools.javac.code.Type.ClassType;
+import java.util.Collections;
 import java.util.List;
+import java.util.Set;
 import javax.lang.model.element.AnnotationMirror;
 import javax.lang.model.element.Element;
 import javax.lang.model.element.ExecutableElement;
@@ -34,6 +37,7 @@ import org.checkerframework.framework.type.AnnotatedTypeMirror.AnnotatedDeclared
 import org.checkerframework.framework.type.AnnotatedTypeMirror.AnnotatedExecutableType;
 import org.checkerframework.javacutil.ErrorReporter;
 import org.checkerframework.javacutil.InternalUtils;
+import org.checkerframework.javacutil.TreeUtils;
 
 /**
  * WholeProgramInferenceScenes is an implementation of {@link
@@ -89,7 +93,16 @@ public class WholeProgramInferenceScenes implements WholeProgramInference {
     private final WholeProgramInferenceScenesHelper helper;
 
     public WholeProgramInferenceScenes(boolean ignoreNullAssignments) {
-        helper = new WholeProgramInferenceScenesHelper(ignoreNullAssignments);
+        this(ignoreNullAssignments, Collections.<String>emptyList());
+    }
+
+    /**
+     * @param ignoreNullAssignments whether assignments where the rhs is null should be ignored
+     * @param moduleDirs the .jaif files directories of the other modules of the program, whose
+     *     inferred types are merged into the types inferred by this compilation
+     */
+    public WholeProgramInferenceScenes(boolean ignoreNullAssignments, List<String> moduleDirs) {
+        helper = new WholeProgramInferenceScenesHelper(ignoreNullAssignments, moduleDirs);
     }
 
     /**
@@ -127,8 +140,9 @@ public class WholeProgramInferenceScenes implements WholeProgramInference {
         }
 
         String className = classSymbol.flatname.toString();
+        addDependency(className, objectCreationNode.getTree(), atf);
         String jaifPath = helper.getJaifPath(className);
-        AClass clazz = helper.getAClass(className, jaifPath);
+        AClass clazz = helper.getAClass(className, jaifPath, atf);
         String methodName = JVMNames.getJVMMethodName(constructorElt);
         AMethod method = clazz.methods.vivify(methodName);
 
@@ -167,8 +181,10 @@ public class WholeProgramInferenceScenes implements WholeProgramInference {
             AnnotatedTypeFactory atf) {
         ClassSymbol classSymbol = getEnclosingClassSymbol(methodTree);
         String className = classSymbol.flatname.toString();
+        MethodSymbol overriddenSymbol = (MethodSymbol) overriddenMethod.getElement();
+        helper.addDependency(overriddenSymbol.enclClass().flatname.toString(), className);
         String jaifPath = helper.getJaifPath(className);
-        AClass clazz = helper.getAClass(className, jaifPath);
+        AClass clazz = helper.getAClass(className, jaifPath, atf);
         String methodName = JVMNames.getJVMMethodName(methodElt);
         AMethod method = clazz.methods.vivify(methodName);
 
@@ -236,8 +252,9 @@ public class WholeProgramInferenceScenes implements WholeProgramInference {
         if (!classSymbol.getEnclosedElements().contains(methodElt)) return;
 
         String className = classSymbol.flatname.toString();
+        addDependency(className, methodInvNode.getTree(), atf);
         String jaifPath = helper.getJaifPath(className);
-        AClass clazz = helper.getAClass(className, jaifPath);
+        AClass clazz = helper.getAClass(className, jaifPath, atf);
 
         String methodName = JVMNames.getJVMMethodName(methodElt);
         AMethod method = clazz.methods.vivify(methodName);
@@ -311,7 +328,7 @@ public class WholeProgramInferenceScenes implements WholeProgramInference {
 
         String className = classSymbol.flatname.toString();
         String jaifPath = helper.getJaifPath(className);
-        AClass clazz = helper.getAClass(className, jaifPath);
+        AClass clazz = helper.getAClass(className, jaifPath, atf);
         String methodName = JVMNames.getJVMMethodName(methodTree);
         AMethod method = clazz.methods.vivify(methodName);
 
@@ -370,7 +387,7 @@ public class WholeProgramInferenceScenes implements WholeProgramInference {
         ClassSymbol classSymbol = getEnclosingClassSymbol(methodTree);
         String className = classSymbol.flatname.toString();
         String jaifPath = helper.getJaifPath(className);
-        AClass clazz = helper.getAClass(className, jaifPath);
+        AClass clazz = helper.getAClass(className, jaifPath, atf);
         String methodName = JVMNames.getJVMMethodName(methodElt);
         AMethod method = clazz.methods.vivify(methodName);
 
@@ -427,8 +444,12 @@ public class WholeProgramInferenceScenes implements WholeProgramInference {
         }
 
         String className = classSymbol.flatname.toString();
+        if (classTree != null) {
+            helper.addDependency(
+                    className, ((ClassSymbol) InternalUtils.symbol(classTree)).flatname.toString());
+        }
         String jaifPath = helper.getJaifPath(className);
-        AClass clazz = helper.getAClass(className, jaifPath);
+        AClass clazz = helper.getAClass(className, jaifPath, atf);
 
         AField field = clazz.fields.vivify(lhs.getFieldName());
         AnnotatedTypeMirror lhsATM = atf.getAnnotatedType(lhs.getTree());
@@ -467,7 +488,7 @@ public class WholeProgramInferenceScenes implements WholeProgramInference {
         String className = classSymbol.flatname.toString();
 
         String jaifPath = helper.getJaifPath(className);
-        AClass clazz = helper.getAClass(className, jaifPath);
+        AClass clazz = helper.getAClass(className, jaifPath, atf);
 
         AMethod method = clazz.methods.vivify(JVMNames.getJVMMethodName(methodTree));
         // Method return type
@@ -484,6 +505,29 @@ public class WholeProgramInferenceScenes implements WholeProgramInference {
         helper.writeScenesToJaif();
     }
 
+    /**
+     * Returns the binary names of the classes that should be type-checked again in the next round
+     * of inference, because inferred types that they depend on were changed by this compilation.
+     *
+     * @see WholeProgramInferenceScenesHelper#getClassesToRecheck
+     */
+    public Set<String> getClassesToRecheck() {
+        return helper.getClassesToRecheck();
+    }
+
+    /**
+     * Records that the class that contains {@code useTree} depends on the inferred signature of the
+     * class {@code className}.
+     */
+    private void addDependency(String className, Tree useTree, AnnotatedTypeFactory atf) {
+        TreePath path = atf.getPath(useTree);
+        ClassTree dependentTree = path == null ? null : TreeUtils.enclosingClass(path);
+        if (dependentTree != null) {
+            ClassSymbol dependent = (ClassSymbol) InternalUtils.symbol(dependentTree);
+            helper.addDependency(className, dependent.flatname.toString());
+        }
+    }
+
     /**
      * Returns the ClassSymbol of the class encapsulating the node n passed as parameter.
      *
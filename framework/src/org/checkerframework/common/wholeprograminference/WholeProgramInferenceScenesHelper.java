@@ -14,12 +14,18 @@ import com.sun.tools.javac.code.TypeAnnotationPosition;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.StringWriter;
 import java.lang.annotation.Target;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
 import javax.lang.model.element.AnnotationMirror;
 import javax.lang.model.element.Element;
 import javax.lang.model.type.MirroredTypesException;
@@ -36,6 +42,8 @@ import org.checkerframework.framework.type.AnnotatedTypeMirror;
 import org.checkerframework.framework.type.AnnotatedTypeMirror.AnnotatedArrayType;
 import org.checkerframework.framework.type.AnnotatedTypeMirror.AnnotatedNullType;
 import org.checkerframework.framework.type.AnnotatedTypeMirror.AnnotatedTypeVariable;
+import org.checkerframework.framework.type.QualifierHierarchy;
+import org.checkerframework.javacutil.AnnotationUtils;
 import org.checkerframework.javacutil.ErrorReporter;
 import org.checkerframework.javacutil.Pair;
 
@@ -52,6 +60,14 @@ import org.checkerframework.javacutil.Pair;
  * #jaifFilesPath} directory. Having more information in those initial .jaif files means that the
  * precision achieved by the whole-program inference analysis will be better. {@link
  * #writeScenesToJaif} rewrites the initial .jaif files, and may create new ones.
+ *
+ * <p>A program whose modules are compiled by separate javac invocations, possibly in parallel, can
+ * be inferred module by module. Each compilation writes the .jaif files of the classes it inferred
+ * types for into its own {@link #jaifFilesPath} directory, and reads the directories of the other
+ * modules, which are passed to the constructor. When the Scene of a class is first needed, the
+ * annotations in the .jaif files of that class in the other directories are merged into it by
+ * computing LUBs. The modules only exchange the types of the elements that are used across them,
+ * such as the parameters of a method that is called by another module.
  */
 public class WholeProgramInferenceScenesHelper {
 
@@ -86,8 +102,66 @@ public class WholeProgramInferenceScenesHelper {
      */
     private final Set<String> modifiedScenes = new HashSet<>();
 
+    /**
+     * Maps the path of each .jaif file that was read by {@link #getScene} or written by {@link
+     * #writeScenesToJaif} to its contents. A modified Scene whose .jaif file would not change is
+     * not written again, because {@link #writeScenesToJaif} is called after each class is
+     * type-checked.
+     */
+    private final Map<String, String> writtenJaifs = new HashMap<>();
+
+    /**
+     * Maps the binary name of a class to the binary names of the classes whose type-checking
+     * depends on its inferred signature: the classes that call its methods and constructors, that
+     * assign its fields, or that override its methods. If the signature changes, these classes
+     * should be type-checked again.
+     *
+     * <p>The map also contains the dependencies recorded by earlier compilations, which are read
+     * from {@link #dependenciesFilePath}. Dependencies are never removed, so a dependency that no
+     * longer exists only causes a class to be type-checked again unnecessarily.
+     */
+    private final Map<String, Set<String>> dependents = new TreeMap<>();
+
+    /** Whether {@link #dependents} has changed since it was read or last written. */
+    private boolean dependenciesChanged = false;
+
+    /**
+     * The file in which {@link #writeScenesToJaif} stores {@link #dependents}, one class per line:
+     * the binary name of a class followed by the binary names of its dependents, separated by
+     * spaces.
+     */
+    public static final String dependenciesFilePath = jaifFilesPath + "dependencies.txt";
+
+    /** The binary names of the classes whose .jaif files were changed by this compilation. */
+    private final Set<String> changedClasses = new TreeSet<>();
+
+    /**
+     * The file to which {@link #writeScenesToJaif} writes the binary names of the classes that
+     * should be type-checked again in the next round of inference, one per line: the classes in
+     * {@link #changedClasses} and their {@link #dependents}.
+     */
+    public static final String recheckFilePath = jaifFilesPath + "classes-to-recheck.txt";
+
+    /**
+     * The .jaif files directories of the other modules of the program, whose annotations are merged
+     * into the Scenes of this compilation.
+     */
+    private final List<String> moduleDirs;
+
     public WholeProgramInferenceScenesHelper(boolean ignoreNullAssignments) {
+        this(ignoreNullAssignments, Collections.<String>emptyList());
+    }
+
+    /**
+     * @param ignoreNullAssignments whether assignments where the rhs is null should be ignored
+     * @param moduleDirs the .jaif files directories of the other modules of the program, which may
+     *     be empty
+     */
+    public WholeProgramInferenceScenesHelper(
+            boolean ignoreNullAssignments, List<String> moduleDirs) {
         this.ignoreNullAssignments = ignoreNullAssignments;
+        this.moduleDirs = moduleDirs;
+        readDependencies();
     }
 
     /**
@@ -105,11 +179,25 @@ public class WholeProgramInferenceScenesHelper {
             try {
                 AScene scene = scenes.get(jaifPath).clone();
                 removeIgnoredAnnosFromScene(scene);
-                new File(jaifPath).delete();
-                if (!scene.prune()) {
+                if (scene.prune()) {
                     // Only write non-empty scenes into .jaif files.
-                    IndexFileWriter.write(scene, new FileWriter(jaifPath));
+                    if (writtenJaifs.remove(jaifPath) != null) {
+                        new File(jaifPath).delete();
+                        changedClasses.addAll(scenes.get(jaifPath).classes.keySet());
+                    }
+                    continue;
+                }
+                StringWriter contents = new StringWriter();
+                IndexFileWriter.write(scene, contents);
+                String newContents = contents.toString();
+                if (newContents.equals(writtenJaifs.get(jaifPath))) {
+                    continue;
                 }
+                try (FileWriter writer = new FileWriter(jaifPath)) {
+                    writer.write(newContents);
+                }
+                writtenJaifs.put(jaifPath, newContents);
+                changedClasses.addAll(scenes.get(jaifPath).classes.keySet());
             } catch (IOException e) {
                 ErrorReporter.errorAbort(
                         "Problem while reading file in: "
@@ -121,9 +209,144 @@ public class WholeProgramInferenceScenesHelper {
                 ErrorReporter.errorAbort(e.getMessage(), e);
             }
         }
+        if (dependenciesChanged) {
+            writeDependencies();
+        }
+        if (!modifiedScenes.isEmpty()) {
+            writeClassesToRecheck();
+        }
         modifiedScenes.clear();
     }
 
+    /**
+     * Records that the type-checking of the class {@code dependentName} depends on the inferred
+     * signature of the class {@code className}.
+     *
+     * @param className the binary name of a class whose signature is inferred
+     * @param dependentName the binary name of a class that uses the signature
+     */
+    protected void addDependency(String className, String dependentName) {
+        if (className.equals(dependentName)) {
+            return;
+        }
+        if (dependentsOf(className).add(dependentName)) {
+            dependenciesChanged = true;
+        }
+    }
+
+    /**
+     * Returns the modifiable set of the dependents of {@code className} in {@link #dependents},
+     * creating it if necessary.
+     *
+     * @param className the binary name of a class
+     * @return the set of the dependents of className
+     */
+    private Set<String> dependentsOf(String className) {
+        Set<String> classDependents = dependents.get(className);
+        if (classDependents == null) {
+            classDependents = new TreeSet<>();
+            dependents.put(className, classDependents);
+        }
+        return classDependents;
+    }
+
+    /**
+     * Adds the dependencies that earlier compilations stored in the file {@link
+     * #dependenciesFilePath}, if it exists, to {@link #dependents}.
+     */
+    private void readDependencies() {
+        File dependenciesFile = new File(dependenciesFilePath);
+        if (!dependenciesFile.exists()) {
+            return;
+        }
+        try {
+            for (String line :
+                    Files.readAllLines(dependenciesFile.toPath(), Charset.defaultCharset())) {
+                String[] names = line.trim().split(" +");
+                for (int i = 1; i < names.length; i++) {
+                    dependentsOf(names[0]).add(names[i]);
+                }
+            }
+        } catch (IOException e) {
+            ErrorReporter.errorAbort(
+                    "Problem while reading file in: "
+                            + dependenciesFilePath
+                            + ". Exception message: "
+                            + e.getMessage(),
+                    e);
+        }
+    }
+
+    /** Writes {@link #dependents} into the file {@link #dependenciesFilePath}. */
+    private void writeDependencies() {
+        try (FileWriter writer = new FileWriter(dependenciesFilePath)) {
+            for (Map.Entry<String, Set<String>> entry : dependents.entrySet()) {
+                writer.write(entry.getKey());
+                for (String dependentName : entry.getValue()) {
+                    writer.write(' ');
+                    writer.write(dependentName);
+                }
+                writer.write(System.lineSeparator());
+            }
+        } catch (IOException e) {
+            ErrorReporter.errorAbort(
+                    "Problem while writing file in: "
+                            + dependenciesFilePath
+                            + ". Exception message: "
+                            + e.getMessage(),
+                    e);
+        }
+        dependenciesChanged = false;
+    }
+
+    /**
+     * Returns the binary names of the classes whose type-checking depends on the inferred signature
+     * of a class, as recorded by this compilation and by earlier ones.
+     *
+     * @param className the binary name of a class
+     * @return the classes that depend on className, sorted by name
+     */
+    public Set<String> getDependents(String className) {
+        Set<String> classDependents = dependents.get(className);
+        return classDependents == null
+                ? Collections.<String>emptySet()
+                : Collections.unmodifiableSet(classDependents);
+    }
+
+    /**
+     * Returns the binary names of the classes that should be type-checked again in the next round
+     * of inference: the classes whose .jaif files were changed by this compilation, and the classes
+     * that depend on them, as recorded by this compilation and by earlier ones. Classes that are not
+     * in this set would yield the same inference results again, provided that each of them was
+     * type-checked with inference at least once.
+     *
+     * @return the classes to type-check in the next round, sorted by name
+     */
+    public Set<String> getClassesToRecheck() {
+        Set<String> result = new TreeSet<>(changedClasses);
+        for (String className : changedClasses) {
+            result.addAll(getDependents(className));
+        }
+        return result;
+    }
+
+    /** Writes {@link #getClassesToRecheck} into the file {@link #recheckFilePath}. */
+    private void writeClassesToRecheck() {
+        try (FileWriter writer = new FileWriter(recheckFilePath)) {
+            for (String className : getClassesToRecheck()) {
+                writer.write(className);
+                writer.write(System.lineSeparator());
+            }
+        } catch (IOException e) {
+            ErrorReporter.errorAbort(
+                    "Problem while writing file in: "
+                            + recheckFilePath
+                            + ". Exception message: "
+                            + e.getMessage(),
+                    e);
+        }
+    }
+
     /** Returns the String representing the .jaif path of a class given its name. */
     protected String getJaifPath(String className) {
         String jaifPath = jaifFilesPath + className + ".jaif";
@@ -142,6 +365,12 @@ public class WholeProgramInferenceScenesHelper {
             if (jaifFile.exists()) {
                 try {
                     IndexFileParser.parseFile(jaifPath, scene);
+                    // Unchanged inference results are not written again.
+                    writtenJaifs.put(
+                            jaifPath,
+                            new String(
+                                    Files.readAllBytes(jaifFile.toPath()),
+                                    Charset.defaultCharset()));
                 } catch (IOException e) {
                     ErrorReporter.errorAbort(
                             "Problem while reading file in: "
@@ -159,13 +388,136 @@ public class WholeProgramInferenceScenesHelper {
         return scene;
     }
 
-    /** Returns the AClass in an AScene, given a className and a jaifPath. */
-    protected AClass getAClass(String className, String jaifPath) {
+    /**
+     * Returns the AClass in an AScene, given a className and a jaifPath. If the Scene is read for
+     * the first time, the annotations of the other modules are merged into it.
+     *
+     * @param className the binary name of the class
+     * @param jaifPath used to identify a Scene
+     * @param atf the annotated type factory of a given type system, whose type hierarchy will be
+     *     used to merge the annotations of the other modules
+     */
+    protected AClass getAClass(String className, String jaifPath, AnnotatedTypeFactory atf) {
+        boolean isNewScene = !scenes.containsKey(jaifPath);
         // Possibly reads .jaif file to obtain a Scene.
         AScene scene = getScene(jaifPath);
+        if (isNewScene) {
+            mergeModuleScenes(scene, className, jaifPath, atf);
+        }
         return scene.classes.vivify(className);
     }
 
+    /**
+     * Merges the annotations in the .jaif files of the class {@code className} in {@link
+     * #moduleDirs} into a Scene. The merged type of an element is the LUB of its types in the
+     * Scene and in the .jaif files.
+     */
+    private void mergeModuleScenes(
+            AScene scene, String className, String jaifPath, AnnotatedTypeFactory atf) {
+        for (String moduleDir : moduleDirs) {
+            File moduleJaif = new File(moduleDir, className + ".jaif");
+            if (!moduleJaif.exists()) {
+                continue;
+            }
+            AScene moduleScene = new AScene();
+            try {
+                IndexFileParser.parseFile(moduleJaif.getPath(), moduleScene);
+            } catch (IOException e) {
+                ErrorReporter.errorAbort(
+                        "Problem while reading file in: "
+                                + moduleJaif.getPath()
+                                + "."
+                                + " Exception message: "
+                                + e.getMessage(),
+                        e);
+            }
+            boolean changed = false;
+            for (Map.Entry<String, AClass> classEntry : moduleScene.classes.entrySet()) {
+                AClass moduleClass = classEntry.getValue();
+                AClass aclass = scene.classes.vivify(classEntry.getKey());
+                for (Map.Entry<String, AField> field : moduleClass.fields.entrySet()) {
+                    changed |=
+                            mergeTypeElement(
+                                    aclass.fields.vivify(field.getKey()).type,
+                                    field.getValue().type,
+                                    atf);
+                }
+                for (Map.Entry<String, AMethod> methodEntry : moduleClass.methods.entrySet()) {
+                    AMethod moduleMethod = methodEntry.getValue();
+                    AMethod method = aclass.methods.vivify(methodEntry.getKey());
+                    changed |= mergeTypeElement(method.returnType, moduleMethod.returnType, atf);
+                    changed |=
+                            mergeTypeElement(
+                                    method.receiver.type, moduleMethod.receiver.type, atf);
+                    for (Map.Entry<Integer, AField> param : moduleMethod.parameters.entrySet()) {
+                        changed |=
+                                mergeTypeElement(
+                                        method.parameters.vivify(param.getKey()).type,
+                                        param.getValue().type,
+                                        atf);
+                    }
+                }
+            }
+            if (changed) {
+                modifiedScenes.add(jaifPath);
+            }
+        }
+    }
+
+    /**
+     * Replaces each annotation supported by atf on {@code type} and its inner types by the LUB of
+     * it and the annotation in the same hierarchy on {@code moduleType}.
+     *
+     * @param type the ATypeElement which will be updated
+     * @param moduleType the corresponding ATypeElement of another module
+     * @param atf the annotated type factory of a given type system, whose type hierarchy will be
+     *     used
+     * @return true if type was changed
+     */
+    private boolean mergeTypeElement(
+            ATypeElement type, ATypeElement moduleType, AnnotatedTypeFactory atf) {
+        QualifierHierarchy qualHierarchy = atf.getQualifierHierarchy();
+        boolean changed = false;
+        for (Annotation moduleAnno : getSupportedAnnosInSet(moduleType.tlAnnotationsHere, atf)) {
+            AnnotationMirror moduleAm =
+                    AnnotationConverter.annotationToAnnotationMirror(
+                            moduleAnno, atf.getProcessingEnv());
+            AnnotationMirror top = qualHierarchy.getTopAnnotation(moduleAm);
+            Annotation anno = null;
+            AnnotationMirror am = null;
+            for (Annotation candidate : getSupportedAnnosInSet(type.tlAnnotationsHere, atf)) {
+                AnnotationMirror candidateAm =
+                        AnnotationConverter.annotationToAnnotationMirror(
+                                candidate, atf.getProcessingEnv());
+                if (AnnotationUtils.areSame(qualHierarchy.getTopAnnotation(candidateAm), top)) {
+                    anno = candidate;
+                    am = candidateAm;
+                    break;
+                }
+            }
+            AnnotationMirror lub =
+                    am == null ? moduleAm : qualHierarchy.leastUpperBound(am, moduleAm);
+            if (am != null && AnnotationUtils.areSame(am, lub)) {
+                continue;
+            }
+            Annotation lubAnno = AnnotationConverter.annotationMirrorToAnnotation(lub);
+            if (lubAnno == null) {
+                continue;
+            }
+            if (anno != null) {
+                type.tlAnnotationsHere.remove(anno);
+            }
+            type.tlAnnotationsHere.add(lubAnno);
+            changed = true;
+        }
+        for (Map.Entry<InnerTypeLocation, ATypeElement> inner :
+                moduleType.innerTypes.entrySet()) {
+            changed |=
+                    mergeTypeElement(type.innerTypes.vivify(inner.getKey()), inner.getValue(), atf);
+        }
+        return changed;
+    }
+
     /**
      * Updates the set of annotations in a location of a Scene.
      *
@@ -210,8 +562,31 @@ public class WholeProgramInferenceScenesHelper {
                 return;
             }
         }
+        Set<String> oldAnnos = annotationsIn(type);
         updateTypeElementFromATM(rhsATM, lhsATM, atf, type, 1, defLoc);
-        modifiedScenes.add(jaifPath);
+        if (!annotationsIn(type).equals(oldAnnos)) {
+            modifiedScenes.add(jaifPath);
+        }
+    }
+
+    /**
+     * Returns the annotations of an ATypeElement and of its inner types, each prefixed by the
+     * location of the inner type it is on. Two results are equal if the ATypeElement would be
+     * written into a .jaif file in the same way.
+     */
+    private static Set<String> annotationsIn(ATypeElement type) {
+        Set<String> result = new HashSet<>();
+        addAnnotationsIn(type, "", result);
+        return result;
+    }
+
+    private static void addAnnotationsIn(ATypeElement type, String prefix, Set<String> result) {
+        for (Annotation anno : type.tlAnnotationsHere) {
+            result.add(prefix + anno);
+        }
+        for (Map.Entry<InnerTypeLocation, ATypeElement> inner : type.innerTypes.entrySet()) {
+            addAnnotationsIn(inner.getValue(), prefix + inner.getKey() + ":", result);
+        }
     }
 
     /**
@@ -9,6 +9,9 @@ import com.sun.source.tree.MethodTree;
 import com.sun.source.tree.Tree;
 import com.sun.source.tree.VariableTree;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
 import javax.annotation.processing.ProcessingEnvironment;
 import javax.lang.model.element.Element;
 import javax.lang.model.element.VariableElement;
@@ -16,6 +19,7 @@ import org.checkerframework.common.basetype.BaseTypeChecker;
 import org.checkerframework.dataflow.cfg.CFGBuilder;
 import org.checkerframework.dataflow.cfg.ControlFlowGraph;
 import org.checkerframework.dataflow.cfg.UnderlyingAST;
+import org.checkerframework.dataflow.qual.TerminatesExecution;
 import org.checkerframework.framework.source.SourceChecker;
 import org.checkerframework.framework.type.AnnotatedTypeFactory;
 import org.checkerframework.framework.type.AnnotatedTypeMirror;
@@ -36,6 +40,30 @@ public class CFCFGBuilder extends CFGBuilder {
     /** Type factory to provide types used during CFG building. */
     protected final AnnotatedTypeFactory factory;
 
+    /**
+     * Maps the artificial trees created while building the last CFG to the method or class that
+     * encloses them.
+     */
+    protected final Map<Tree, Element> artificialTrees = new IdentityHashMap<>();
+
+    /**
+     * Maps the assert statements of the last CFG that use an {@code @AssumeAssertion} string to
+     * whether the assertion was assumed to be enabled for this checker.
+     */
+    protected final Map<AssertTree, Boolean> assumedAssertions = new IdentityHashMap<>();
+
+    /**
+     * Maps the methods invoked in the last CFG to whether the type factory found a {@link
+     * TerminatesExecution} annotation on them, which may come from the checker's stub files.
+     */
+    protected final Map<Element, Boolean> terminationDecisions = new HashMap<>();
+
+    /**
+     * Whether the last CFG depends on the type factory that built it, because it contains trees
+     * annotated with qualifiers of that factory.
+     */
+    protected boolean checkerSpecific = false;
+
     public CFCFGBuilder(BaseTypeChecker checker, AnnotatedTypeFactory factory) {
         super(
                 checker.hasOption("assumeAssertionsAreEnabled"),
@@ -54,6 +82,10 @@ public class CFCFGBuilder extends CFGBuilder {
             CompilationUnitTree root, ProcessingEnvironment env, UnderlyingAST underlyingAST) {
         declaredClasses.clear();
         declaredLambdas.clear();
+        artificialTrees.clear();
+        assumedAssertions.clear();
+        terminationDecisions.clear();
+        checkerSpecific = false;
 
         CFTreeBuilder builder = new CFTreeBuilder(env);
         PhaseOneResult phase1result =
@@ -64,6 +96,82 @@ public class CFCFGBuilder extends CFGBuilder {
         return phase3result;
     }
 
+    /**
+     * Returns whether the last CFG built by this builder depends on its type factory. A CFG that
+     * does not can be shared with other checkers through a {@link CFGCache}, as long as they
+     * handle assertions and methods that terminate the execution in the same way; see {@link
+     * #getAssumedAssertions()} and {@link #getTerminationDecisions()}.
+     *
+     * @return whether the last CFG built depends on the type factory that built it
+     */
+    public boolean isCheckerSpecific() {
+        return checkerSpecific;
+    }
+
+    /**
+     * Returns the map from the artificial trees created while building the last CFG to the method
+     * or class that encloses them.
+     *
+     * @return the artificial trees of the last CFG and their enclosing elements
+     */
+    public Map<Tree, Element> getArtificialTrees() {
+        return artificialTrees;
+    }
+
+    /**
+     * Returns the map from the assert statements of the last CFG that use an {@code
+     * @AssumeAssertion} string to whether the assertion was assumed to be enabled.
+     *
+     * @return the checker-specific assertion decisions made while building the last CFG
+     */
+    public Map<AssertTree, Boolean> getAssumedAssertions() {
+        return assumedAssertions;
+    }
+
+    /**
+     * Returns the map from the methods invoked in the last CFG to whether an invocation of the
+     * method terminates the execution. The CFG depends on the checker through these decisions,
+     * through the decisions about assertions (see {@link #getAssumedAssertions()}), and through
+     * the assumeAssertionsAreEnabled and assumeAssertionsAreDisabled options.
+     *
+     * @return the checker-specific termination decisions made while building the last CFG
+     */
+    public Map<Element, Boolean> getTerminationDecisions() {
+        return terminationDecisions;
+    }
+
+    /**
+     * Returns whether this builder treats an invocation of {@code method} as terminating the
+     * execution, because its type factory finds a {@link TerminatesExecution} annotation on it.
+     *
+     * @param method a method or constructor
+     * @return whether an invocation of method terminates the execution for this builder
+     */
+    public boolean terminatesExecution(Element method) {
+        return factory.getDeclAnnotation(method, TerminatesExecution.class) != null;
+    }
+
+    /** @return whether this builder assumes that all assertions are enabled */
+    public boolean assumesAssertionsEnabled() {
+        return assumeAssertionsEnabled;
+    }
+
+    /** @return whether this builder assumes that all assertions are disabled */
+    public boolean assumesAssertionsDisabled() {
+        return assumeAssertionsDisabled;
+    }
+
+    /**
+     * Returns whether this builder assumes that {@code tree} is executed because of an {@code
+     * @AssumeAssertion} string that is relevant to its checker.
+     *
+     * @param tree an assert statement
+     * @return whether the assertion is assumed to be enabled for the checker of this builder
+     */
+    public boolean assumesAssertion(AssertTree tree) {
+        return assumeAssertionsActivatedForAssertTree(checker, tree);
+    }
+
     /*
      * Given a SourceChecker and an AssertTree, returns whether the AssertTree
      * uses an @AssumeAssertion string that is relevant to the SourceChecker.
@@ -89,12 +197,28 @@ public class CFCFGBuilder extends CFGBuilder {
 
         @Override
         protected boolean assumeAssertionsEnabledFor(AssertTree tree) {
-            if (assumeAssertionsActivatedForAssertTree(checker, tree)) {
+            ExpressionTree detail = tree.getDetail();
+            boolean assumed = assumesAssertion(tree);
+            if (detail != null && detail.toString().contains("@AssumeAssertion(")) {
+                // Whether the assertion is assumed depends on the checker.
+                assumedAssertions.put(tree, assumed);
+            }
+            if (assumed) {
                 return true;
             }
             return super.assumeAssertionsEnabledFor(tree);
         }
 
+        @Override
+        protected boolean terminatesExecution(Element methodElement) {
+            Boolean terminates = terminationDecisions.get(methodElement);
+            if (terminates == null) {
+                terminates = CFCFGBuilder.this.terminatesExecution(methodElement);
+                terminationDecisions.put(methodElement, terminates);
+            }
+            return terminates;
+        }
+
         @Override
         public void handleArtificialTree(Tree tree) {
             // Record the method or class that encloses the newly created tree.
@@ -102,11 +226,13 @@ public class CFCFGBuilder extends CFGBuilder {
             if (enclosingMethod != null) {
                 Element methodElement = TreeUtils.elementFromDeclaration(enclosingMethod);
                 factory.setPathHack(tree, methodElement);
+                artificialTrees.put(tree, methodElement);
             } else {
                 ClassTree enclosingClass = TreeUtils.enclosingClass(getCurrentPath());
                 if (enclosingClass != null) {
                     Element classElement = TreeUtils.elementFromDeclaration(enclosingClass);
                     factory.setPathHack(tree, classElement);
+                    artificialTrees.put(tree, classElement);
                 }
             }
         }
@@ -114,6 +240,8 @@ public class CFCFGBuilder extends CFGBuilder {
         @Override
         protected VariableTree createEnhancedForLoopIteratorVariable(
                 MethodInvocationTree iteratorCall, VariableElement variableElement) {
+            // The type of the variable is annotated with qualifiers of this checker.
+            checkerSpecific = true;
             // We do not want to cache flow-insensitive types
             // retrieved during CFG building.
             boolean oldShouldCache = factory.shouldCache;
@@ -138,6 +266,8 @@ public class CFCFGBuilder extends CFGBuilder {
         @Override
         protected VariableTree createEnhancedForLoopArrayVariable(
                 ExpressionTree expression, VariableElement variableElement) {
+            // The type of the variable is annotated with qualifiers of this checker.
+            checkerSpecific = true;
             // We do not want to cache flow-insensitive types
             // retrieved during CFG building.
             boolean oldShouldCache = factory.shouldCache;
@@ -0,0 +1,185 @@
+package org.checkerframework.framework.flow;
+
+import com.sun.source.tree.AssertTree;
+import com.sun.source.tree.ClassTree;
+import com.sun.source.tree.CompilationUnitTree;
+import com.sun.source.tree.LambdaExpressionTree;
+import com.sun.source.tree.Tree;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.lang.model.element.Element;
+import org.checkerframework.dataflow.cfg.ControlFlowGraph;
+import org.checkerframework.dataflow.cfg.UnderlyingAST;
+import org.checkerframework.framework.type.AnnotatedTypeFactory;
+
+/**
+ * A cache of control flow graphs that is shared by all checkers that are run together, that is, by
+ * a compound checker and its subcheckers or by the component checkers of an aggregate checker. The
+ * CFG of each method, lambda, and initializer of a compilation unit is then built only once rather
+ * than once per checker.
+ *
+ * <p>A control flow graph mostly depends on the Java AST. It also depends on the checker through
+ * how its {@code assert} statements are handled and through which of the invoked methods are
+ * annotated with {@link org.checkerframework.dataflow.qual.TerminatesExecution}, which a checker
+ * may declare in its stub files. Therefore, the cache may hold several variants of the CFG of one
+ * {@link UnderlyingAST}. A checker reuses a variant if it would have made the same decisions; see
+ * {@link CFCFGBuilder#getAssumedAssertions()} and {@link CFCFGBuilder#getTerminationDecisions()}.
+ * Otherwise, it builds its own CFG, which becomes another variant. CFGs that depend on the type
+ * factory that built them are never stored; see {@link CFCFGBuilder#isCheckerSpecific()}.
+ *
+ * <p>The artificial trees created while building a CFG are stored along with it, so that their
+ * enclosing elements can be registered with every type factory that reuses the CFG.
+ *
+ * <p>The cache only holds the CFGs of one compilation unit at a time. It is not synchronized: the
+ * checkers that share it check a compilation unit together, on the same thread.
+ */
+public class CFGCache {
+
+    /**
+     * A control flow graph together with the information about its construction that is needed
+     * to reuse it and to analyze it.
+     */
+    public static class Entry {
+        /** The control flow graph. */
+        private final ControlFlowGraph cfg;
+
+        /** Maps the artificial trees created while building the CFG to their enclosing elements. */
+        private final Map<Tree, Element> artificialTrees;
+
+        /** The classes declared in the code underlying the CFG. */
+        private final List<ClassTree> declaredClasses;
+
+        /** The lambdas declared in the code underlying the CFG. */
+        private final List<LambdaExpressionTree> declaredLambdas;
+
+        /** Whether all assertions were assumed to be enabled when building the CFG. */
+        private final boolean assumeAssertionsEnabled;
+
+        /** Whether all assertions were assumed to be disabled when building the CFG. */
+        private final boolean assumeAssertionsDisabled;
+
+        /** The checker-specific assertion decisions made while building the CFG. */
+        private final Map<AssertTree, Boolean> assumedAssertions;
+
+        /** The checker-specific termination decisions made while building the CFG. */
+        private final Map<Element, Boolean> terminationDecisions;
+
+        /**
+         * Creates an entry for a CFG that was just built by {@code builder}.
+         *
+         * @param cfg the control flow graph
+         * @param builder the builder that built cfg
+         */
+        public Entry(ControlFlowGraph cfg, CFCFGBuilder builder) {
+            this.cfg = cfg;
+            this.artificialTrees = builder.getArtificialTrees();
+            this.declaredClasses = builder.getDeclaredClasses();
+            this.declaredLambdas = builder.getDeclaredLambdas();
+            this.assumeAssertionsEnabled = builder.assumesAssertionsEnabled();
+            this.assumeAssertionsDisabled = builder.assumesAssertionsDisabled();
+            this.assumedAssertions = builder.getAssumedAssertions();
+            this.terminationDecisions = builder.getTerminationDecisions();
+        }
+
+        public ControlFlowGraph getCFG() {
+            return cfg;
+        }
+
+        public List<ClassTree> getDeclaredClasses() {
+            return declaredClasses;
+        }
+
+        public List<LambdaExpressionTree> getDeclaredLambdas() {
+            return declaredLambdas;
+        }
+
+        /**
+         * Returns whether {@code builder} would build the same CFG as the one in this entry.
+         *
+         * @param builder a CFG builder of some checker
+         * @return whether builder handles the assertions and the invoked methods of this CFG in
+         *     the same way as the builder that built it
+         */
+        private boolean isCompatible(CFCFGBuilder builder) {
+            if (assumeAssertionsEnabled != builder.assumesAssertionsEnabled()
+                    || assumeAssertionsDisabled != builder.assumesAssertionsDisabled()) {
+                return false;
+            }
+            for (Map.Entry<AssertTree, Boolean> assumed : assumedAssertions.entrySet()) {
+                if (assumed.getValue() != builder.assumesAssertion(assumed.getKey())) {
+                    return false;
+                }
+            }
+            for (Map.Entry<Element, Boolean> terminates : terminationDecisions.entrySet()) {
+                if (terminates.getValue() != builder.terminatesExecution(terminates.getKey())) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /** The compilation unit whose CFGs are cached. */
+    private CompilationUnitTree root = null;
+
+    /** Maps an underlying AST to the variants of its CFG. */
+    private final Map<UnderlyingAST, List<Entry>> cfgs = new HashMap<>();
+
+    /**
+     * Returns a cached CFG for {@code ast} that {@code builder} would have built, or null if there
+     * is none. If a CFG is found, the enclosing elements of the artificial trees in it are
+     * registered with {@code factory}.
+     *
+     * @param root the compilation unit that contains ast
+     * @param ast the underlying AST of the CFG
+     * @param builder the builder that would build the CFG if it is not cached
+     * @param factory the type factory that will analyze the CFG
+     * @return a cached CFG for ast or null if there is none
+     */
+    public Entry get(
+            CompilationUnitTree root,
+            UnderlyingAST ast,
+            CFCFGBuilder builder,
+            AnnotatedTypeFactory factory) {
+        if (root != this.root) {
+            return null;
+        }
+        List<Entry> variants = cfgs.get(ast);
+        if (variants == null) {
+            return null;
+        }
+        for (Entry entry : variants) {
+            if (entry.isCompatible(builder)) {
+                for (Map.Entry<Tree, Element> artificialTree :
+                        entry.artificialTrees.entrySet()) {
+                    factory.setPathHack(artificialTree.getKey(), artificialTree.getValue());
+                }
+                return entry;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Stores {@code entry} as a variant of the CFG of {@code ast}. If {@code root} is not the
+     * compilation unit of the CFGs already in the cache, then those CFGs are discarded first.
+     *
+     * @param root the compilation unit that contains ast
+     * @param ast the underlying AST of the CFG
+     * @param entry a CFG whose construction did not depend on a particular type factory
+     */
+    public void put(CompilationUnitTree root, UnderlyingAST ast, Entry entry) {
+        if (root != this.root) {
+            cfgs.clear();
+            this.root = root;
+        }
+        List<Entry> variants = cfgs.get(ast);
+        if (variants == null) {
+            variants = new ArrayList<>(1);
+            cfgs.put(ast, variants);
+        }
+        variants.add(entry);
+    }
+}
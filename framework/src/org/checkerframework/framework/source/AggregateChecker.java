@@ -1,9 +1,6 @@
 package org.checkerframework.framework.source;
 
 import com.sun.source.util.TreePath;
-import com.sun.tools.javac.processing.JavacProcessingEnvironment;
-import com.sun.tools.javac.util.Context;
-import com.sun.tools.javac.util.Log;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -22,7 +19,9 @@ import javax.tools.Diagnostic.Kind;
  *
  * <p>There is no communication, interaction, or cooperation between the component checkers, even to
  * the extent of being able to read one another's qualifiers. An aggregate checker is merely
- * shorthand to invoke a sequence of checkers.
+ * shorthand to invoke a sequence of checkers. The only thing the component checkers may share is
+ * the control flow graphs they build, if the -AshareCFGs command-line option is supplied; see
+ * {@link SourceChecker#getCFGCache()}.
  *
  * <p>This class delegates {@code AbstractTypeProcessor} responsibilities to each component checker.
  *
@@ -97,13 +96,12 @@ public abstract class AggregateChecker extends SourceChecker {
     // AbstractTypeProcessor delegation
     @Override
     public final void typeProcess(TypeElement element, TreePath tree) {
-        Context context = ((JavacProcessingEnvironment) processingEnv).getContext();
-        Log log = Log.instance(context);
-        if (log.nerrors > this.errsOnLastExit) {
+        int nerrors = getErrorCount();
+        if (nerrors > this.errsOnLastExit) {
             // If there is a Java error, do not perform any
             // of the component type checks, but come back
             // for the next compilation unit.
-            this.errsOnLastExit = log.nerrors;
+            this.errsOnLastExit = nerrors;
             return;
         }
         if (!allCheckersInited) {
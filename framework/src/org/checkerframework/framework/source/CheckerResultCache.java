@@ -0,0 +1,442 @@
+package org.checkerframework.framework.source;
+
+import com.sun.source.tree.CompilationUnitTree;
+import com.sun.source.tree.IdentifierTree;
+import com.sun.source.tree.MemberSelectTree;
+import com.sun.source.tree.Tree;
+import com.sun.source.util.TreePath;
+import com.sun.source.util.TreeScanner;
+import com.sun.tools.javac.code.Symbol;
+import com.sun.tools.javac.code.Symbol.ClassSymbol;
+import com.sun.tools.javac.code.Symbol.PackageSymbol;
+import com.sun.tools.javac.code.Type;
+import com.sun.tools.javac.tree.JCTree;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.ExecutableType;
+import javax.lang.model.type.IntersectionType;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.type.UnionType;
+import javax.lang.model.type.WildcardType;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+import org.checkerframework.javacutil.ErrorReporter;
+import org.checkerframework.javacutil.InternalUtils;
+
+/**
+ * Stores the diagnostics that a checker issued for each top-level class in a directory, so that
+ * they can be reported again without type-checking the class when it is compiled again with the
+ * same inputs. Enabled with the {@code -AresultCache=dir} option.
+ *
+ * <p>The diagnostics of a class are stored under a hash of everything that they depend on:
+ *
+ * <ul>
+ *   <li>the name of the class and the source code of its compilation unit,
+ *   <li>the checker, the version of the Checker Framework, and the annotation processor options,
+ *   <li>the stub files that are passed with the {@code stubs} option or environment variable, and
+ *   <li>the classes that the class may depend on: the source code of classes that are compiled
+ *       from source, and the modification times of class files. See {@link
+ *       #referencedClasses(Tree)}.
+ * </ul>
+ *
+ * The diagnostics of a class are only stored if each of them is about a tree in the class, because
+ * only the position of the tree is stored.
+ *
+ * <p>The cache is safe to use from several threads and several compilations at the same time.
+ */
+class CheckerResultCache {
+
+    /** The directory in which the diagnostics are stored, one file per class. */
+    private final File directory;
+
+    /**
+     * Maps each file that a class may refer to, to a fingerprint of its contents. Each file is
+     * read at most once per compilation.
+     */
+    private final Map<JavaFileObject, String> fingerprints = new HashMap<>();
+
+    /**
+     * Creates a cache that stores diagnostics in {@code directory}.
+     *
+     * @param directory the cache directory, which is created if it does not exist
+     */
+    CheckerResultCache(File directory) {
+        this.directory = directory;
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            ErrorReporter.errorAbort("Could not create the result cache directory " + directory);
+        }
+    }
+
+    /** A diagnostic about a tree. */
+    static final class CachedDiagnostic {
+        /** The kind of the diagnostic. */
+        final Diagnostic.Kind kind;
+
+        /** The kind of the tree that the diagnostic is about. */
+        final Tree.Kind treeKind;
+
+        /** The position of the tree that the diagnostic is about, as in {@link JCTree#pos}. */
+        final int position;
+
+        /** The text of the diagnostic. */
+        final String text;
+
+        CachedDiagnostic(Diagnostic.Kind kind, Tree.Kind treeKind, int position, String text) {
+            this.kind = kind;
+            this.treeKind = treeKind;
+            this.position = position;
+            this.text = text;
+        }
+
+        /**
+         * Returns the tree in {@code root} that this diagnostic is about.
+         *
+         * @param root the compilation unit of the class that the diagnostic was issued for
+         * @return the tree of this diagnostic, or null if root does not contain it
+         */
+        Tree findTree(CompilationUnitTree root) {
+            return new TreeScanner<Tree, Void>() {
+                @Override
+                public Tree scan(Tree tree, Void p) {
+                    if (tree == null) {
+                        return null;
+                    }
+                    if (tree.getKind() == treeKind && ((JCTree) tree).pos == position) {
+                        return tree;
+                    }
+                    return super.scan(tree, p);
+                }
+
+                @Override
+                public Tree reduce(Tree r1, Tree r2) {
+                    return r1 != null ? r1 : r2;
+                }
+            }.scan(root, null);
+        }
+    }
+
+    /**
+     * Returns the key under which the diagnostics of {@code checker} for a class are stored.
+     *
+     * @param checker the checker that type-checks the class
+     * @param element the class
+     * @param path the path to the class
+     * @return a hash of the inputs of type-checking the class, or null if they could not be read
+     */
+    String key(SourceChecker checker, TypeElement element, TreePath path) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            return null;
+        }
+        StringBuilder inputs = new StringBuilder();
+        inputs.append(checker.getClass().getName()).append('\n');
+        inputs.append(SourceChecker.class.getPackage().getImplementationVersion()).append('\n');
+        inputs.append(jarFingerprint(checker.getClass())).append('\n');
+        inputs.append(jarFingerprint(SourceChecker.class)).append('\n');
+        inputs.append(new TreeMap<>(checker.getProcessingEnvironment().getOptions())).append('\n');
+        inputs.append(stubFingerprint(checker.getOption("stubs"))).append('\n');
+        inputs.append(stubFingerprint(System.getenv("stubs"))).append('\n');
+        inputs.append(element.getQualifiedName()).append('\n');
+
+        CompilationUnitTree root = path.getCompilationUnit();
+        String sourceFingerprint = fingerprint(root.getSourceFile());
+        if (sourceFingerprint == null) {
+            return null;
+        }
+        inputs.append(sourceFingerprint).append('\n');
+        for (ClassSymbol referenced : referencedClasses(path.getLeaf())) {
+            JavaFileObject file =
+                    referenced.classfile != null ? referenced.classfile : referenced.sourcefile;
+            inputs.append(referenced.flatname).append(' ');
+            inputs.append(file == null ? "" : fingerprint(file)).append('\n');
+        }
+
+        return toHex(digest.digest(inputs.toString().getBytes(Charset.forName("UTF-8"))));
+    }
+
+    /**
+     * Returns the classes whose source or class files the type-checking of {@code tree} may depend
+     * on, sorted by name. These are the outermost classes of:
+     *
+     * <ul>
+     *   <li>the elements that tree refers to by name,
+     *   <li>the types of the trees in tree, including the class itself. These include types that
+     *       are used implicitly, such as the target type of a lambda, the type whose iterator an
+     *       enhanced for loop uses, or the type of an expression that is unboxed,
+     *   <li>all supertypes of these classes, because a class inherits members and defaults from
+     *       them, and
+     *   <li>the package-info classes of the packages of all these classes, because they may
+     *       contain default qualifiers.
+     * </ul>
+     */
+    private static Iterable<ClassSymbol> referencedClasses(Tree tree) {
+        final Set<ClassSymbol> referenced = new LinkedHashSet<>();
+        new TreeScanner<Void, Void>() {
+            @Override
+            public Void scan(Tree node, Void p) {
+                if (node instanceof JCTree) {
+                    addClasses(((JCTree) node).type, referenced);
+                }
+                return super.scan(node, p);
+            }
+
+            @Override
+            public Void visitIdentifier(IdentifierTree node, Void p) {
+                addOwner(InternalUtils.symbol(node));
+                return super.visitIdentifier(node, p);
+            }
+
+            @Override
+            public Void visitMemberSelect(MemberSelectTree node, Void p) {
+                addOwner(InternalUtils.symbol(node));
+                return super.visitMemberSelect(node, p);
+            }
+
+            private void addOwner(Object element) {
+                if (element instanceof Symbol) {
+                    ClassSymbol owner = ((Symbol) element).enclClass();
+                    if (owner != null) {
+                        referenced.add(owner);
+                    }
+                }
+            }
+        }.scan(tree, null);
+
+        // Add the supertypes of each class, transitively.
+        Set<ClassSymbol> closure = new LinkedHashSet<>();
+        Deque<ClassSymbol> worklist = new ArrayDeque<>(referenced);
+        while (!worklist.isEmpty()) {
+            ClassSymbol clazz = worklist.pop();
+            if (!closure.add(clazz)) {
+                continue;
+            }
+            Set<ClassSymbol> supertypes = new LinkedHashSet<>();
+            addClasses(clazz.getSuperclass(), supertypes);
+            for (Type iface : clazz.getInterfaces()) {
+                addClasses(iface, supertypes);
+            }
+            ClassSymbol outermost = clazz.outermostClass();
+            if (outermost != null) {
+                supertypes.add(outermost);
+            }
+            worklist.addAll(supertypes);
+        }
+
+        Map<String, ClassSymbol> result = new TreeMap<>();
+        for (ClassSymbol clazz : closure) {
+            ClassSymbol outermost = clazz.outermostClass();
+            if (outermost == null) {
+                continue;
+            }
+            result.put(outermost.flatname.toString(), outermost);
+            PackageSymbol pkg = outermost.packge();
+            // Completes the package, which reads its package-info class if there is one.
+            pkg.getAnnotationMirrors();
+            if (pkg.package_info != null) {
+                result.put(pkg.package_info.flatname.toString(), pkg.package_info);
+            }
+        }
+        return result.values();
+    }
+
+    /**
+     * Adds the classes that occur in {@code type} to {@code classes}: the class of a declared type
+     * and of its type arguments and enclosing types, the component type of an array, the bounds of
+     * a wildcard, and the alternatives and bounds of union and intersection types. The bounds of
+     * type variables are not added, because they are declared by a class or method that is
+     * referenced anyway.
+     *
+     * @param type a type, may be null
+     * @param classes the set to add the classes to
+     */
+    private static void addClasses(TypeMirror type, Set<ClassSymbol> classes) {
+        if (type == null) {
+            return;
+        }
+        switch (type.getKind()) {
+            case DECLARED:
+                DeclaredType declaredType = (DeclaredType) type;
+                if (declaredType.asElement() instanceof ClassSymbol) {
+                    classes.add((ClassSymbol) declaredType.asElement());
+                }
+                for (TypeMirror typeArg : declaredType.getTypeArguments()) {
+                    addClasses(typeArg, classes);
+                }
+                addClasses(declaredType.getEnclosingType(), classes);
+                break;
+            case ARRAY:
+                addClasses(((ArrayType) type).getComponentType(), classes);
+                break;
+            case WILDCARD:
+                addClasses(((WildcardType) type).getExtendsBound(), classes);
+                addClasses(((WildcardType) type).getSuperBound(), classes);
+                break;
+            case UNION:
+                for (TypeMirror alternative : ((UnionType) type).getAlternatives()) {
+                    addClasses(alternative, classes);
+                }
+                break;
+            case INTERSECTION:
+                for (TypeMirror bound : ((IntersectionType) type).getBounds()) {
+                    addClasses(bound, classes);
+                }
+                break;
+            case EXECUTABLE:
+                ExecutableType methodType = (ExecutableType) type;
+                addClasses(methodType.getReturnType(), classes);
+                for (TypeMirror paramType : methodType.getParameterTypes()) {
+                    addClasses(paramType, classes);
+                }
+                for (TypeMirror thrownType : methodType.getThrownTypes()) {
+                    addClasses(thrownType, classes);
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Returns a fingerprint of a file: a hash of its contents if it is a source file, otherwise its
+     * location and modification time.
+     *
+     * @param file a source or class file
+     * @return the fingerprint of file, or null if it could not be read
+     */
+    private String fingerprint(JavaFileObject file) {
+        synchronized (fingerprints) {
+            if (fingerprints.containsKey(file)) {
+                return fingerprints.get(file);
+            }
+        }
+        String result;
+        if (file.getKind() == JavaFileObject.Kind.SOURCE) {
+            try {
+                MessageDigest digest = MessageDigest.getInstance("SHA-256");
+                byte[] contents =
+                        file.getCharContent(true).toString().getBytes(Charset.forName("UTF-8"));
+                result = toHex(digest.digest(contents));
+            } catch (IOException | NoSuchAlgorithmException e) {
+                result = null;
+            }
+        } else {
+            result = file.toUri() + "@" + file.getLastModified();
+        }
+        synchronized (fingerprints) {
+            fingerprints.put(file, result);
+        }
+        return result;
+    }
+
+    /** Returns the location and modification time of the jar file or directory of a class. */
+    private static String jarFingerprint(Class<?> clazz) {
+        if (clazz.getProtectionDomain().getCodeSource() == null) {
+            return "";
+        }
+        String location = clazz.getProtectionDomain().getCodeSource().getLocation().getPath();
+        return location + "@" + new File(location).lastModified();
+    }
+
+    /** Returns the paths and modification times of the stub files in a list of stub files. */
+    private static String stubFingerprint(String stubFiles) {
+        if (stubFiles == null) {
+            return "";
+        }
+        StringBuilder result = new StringBuilder();
+        for (String stubFile : stubFiles.split(File.pathSeparator)) {
+            result.append(stubFile).append('@').append(new File(stubFile).lastModified());
+            result.append(File.pathSeparator);
+        }
+        return result.toString();
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder result = new StringBuilder(2 * bytes.length);
+        for (byte b : bytes) {
+            result.append(Character.forDigit((b >> 4) & 0xF, 16));
+            result.append(Character.forDigit(b & 0xF, 16));
+        }
+        return result.toString();
+    }
+
+    /**
+     * Returns the diagnostics that are stored under {@code key}.
+     *
+     * @param key a key returned by {@link #key}
+     * @return the diagnostics, or null if none are stored under key
+     */
+    List<CachedDiagnostic> load(String key) {
+        File file = new File(directory, key);
+        if (!file.isFile()) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new FileInputStream(file))) {
+            int size = in.readInt();
+            List<CachedDiagnostic> result = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                Diagnostic.Kind kind = Diagnostic.Kind.valueOf(in.readUTF());
+                Tree.Kind treeKind = Tree.Kind.valueOf(in.readUTF());
+                int position = in.readInt();
+                String text = in.readUTF();
+                result.add(new CachedDiagnostic(kind, treeKind, position, text));
+            }
+            return result;
+        } catch (IOException | IllegalArgumentException e) {
+            // A damaged or outdated entry is ignored, and replaced after type-checking.
+            return null;
+        }
+    }
+
+    /**
+     * Stores diagnostics under {@code key}. The diagnostics are written to a temporary file first,
+     * so that other compilations never read a partially written entry.
+     *
+     * @param key a key returned by {@link #key}
+     * @param diagnostics the diagnostics of the class
+     */
+    void store(String key, List<CachedDiagnostic> diagnostics) {
+        File file = new File(directory, key);
+        File temp = null;
+        try {
+            temp = File.createTempFile(key, ".tmp", directory);
+            try (DataOutputStream out = new DataOutputStream(new FileOutputStream(temp))) {
+                out.writeInt(diagnostics.size());
+                for (CachedDiagnostic diagnostic : diagnostics) {
+                    out.writeUTF(diagnostic.kind.name());
+                    out.writeUTF(diagnostic.treeKind.name());
+                    out.writeInt(diagnostic.position);
+                    out.writeUTF(diagnostic.text);
+                }
+            }
+            if (!temp.renameTo(file)) {
+                temp.delete();
+            }
+        } catch (IOException e) {
+            // The class is type-checked again the next time.
+            if (temp != null) {
+                temp.delete();
+            }
+        }
+    }
+}
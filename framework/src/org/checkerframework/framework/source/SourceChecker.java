@@ -12,10 +12,13 @@ import com.sun.source.tree.Tree;
 import com.sun.source.tree.VariableTree;
 import com.sun.source.util.SourcePositions;
 import com.sun.source.util.TreePath;
+import com.sun.source.util.TreeScanner;
 import com.sun.source.util.Trees;
 import com.sun.tools.javac.processing.JavacProcessingEnvironment;
+import com.sun.tools.javac.tree.JCTree;
 import com.sun.tools.javac.util.Context;
 import com.sun.tools.javac.util.Log;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.lang.management.ManagementFactory;
@@ -47,7 +50,9 @@ import javax.lang.model.util.Types;
 import javax.tools.Diagnostic;
 import javax.tools.Diagnostic.Kind;
 import org.checkerframework.common.basetype.BaseTypeChecker;
+import org.checkerframework.framework.flow.CFGCache;
 import org.checkerframework.framework.qual.AnnotatedFor;
+import org.checkerframework.framework.stub.StubParser;
 import org.checkerframework.framework.type.AnnotatedTypeFactory;
 import org.checkerframework.framework.util.CFContext;
 import org.checkerframework.framework.util.CheckerMain;
@@ -188,6 +193,16 @@ import org.checkerframework.javacutil.TreeUtils;
     // Whether to use .jaif files whole-program inference
     "infer",
 
+    // The directory in which to store the diagnostics of each class, which are
+    // reported again instead of type-checking the class if its inputs are unchanged
+    // org.checkerframework.framework.source.SourceChecker.typeProcessClass
+    "resultCache",
+
+    // The .jaif files directories of the other modules of the program,
+    // separated by the path separator, for whole-program inference
+    // org.checkerframework.common.wholeprograminference.WholeProgramInferenceScenesHelper
+    "inferModuleDirs",
+
     // With each warning, in addition to the concrete error key,
     // output the suppress warning keys that can be used to
     // suppress that warning.
@@ -306,7 +321,19 @@ import org.checkerframework.javacutil.TreeUtils;
     "atfCacheSize",
 
     // Sets AnnotatedTypeFactory shouldCache to false
-    "atfDoNotCache"
+    "atfDoNotCache",
+
+    // Whether AnnotatedTypeFactory shares equal types in its caches
+    // org.checkerframework.framework.type.AnnotatedTypeInterner
+    "atfInternCachedTypes",
+
+    // Whether AnnotatedTypeFactory indexes the parents of all trees to look up paths
+    // org.checkerframework.framework.util.TreePathCacher
+    "atfIndexTreePaths",
+
+    // Whether checkers that are run together share the control flow graphs they build
+    // org.checkerframework.framework.source.SourceChecker.shouldShareCFGs()
+    "shareCFGs"
 })
 public abstract class SourceChecker extends AbstractTypeProcessor
         implements ErrorHandler, CFContext, OptionConfiguration {
@@ -321,7 +348,10 @@ public abstract class SourceChecker extends AbstractTypeProcessor
     /** File name of the localized messages. */
     protected static final String MSGS_FILE = "messages.properties";
 
-    /** Maps error keys to localized/custom error messages. */
+    /**
+     * Maps error keys to localized/custom error messages. Call {@link #getMessages} rather than
+     * using this field directly, as it is null until the first message is reported.
+     */
     protected Properties messages;
 
     /** Used to report error messages and warnings via the compiler. */
@@ -342,9 +372,50 @@ public abstract class SourceChecker extends AbstractTypeProcessor
     /** The visitor to use. */
     protected SourceVisitor<?, ?> visitor;
 
+    /**
+     * The cache of the diagnostics of each class, or null if the {@code -AresultCache} option is not
+     * given or no class was processed yet. Only the checker that runs all others uses a cache.
+     */
+    private CheckerResultCache resultCache = null;
+
+    /**
+     * The diagnostics issued by this checker and the checkers it runs for the class that is being
+     * type-checked, which will be stored in {@link #resultCache}. Null if diagnostics are not
+     * recorded, or if a diagnostic was issued that cannot be stored.
+     */
+    private List<CheckerResultCache.CachedDiagnostic> recordedDiagnostics = null;
+
     /** Keys for warning suppressions specified on the command line */
     private String /*@Nullable*/ [] suppressWarnings;
 
+    /** The compilation unit that {@link #rootSuppressWarnings} was computed for. */
+    private /*@Nullable*/ CompilationUnitTree suppressionIndexRoot = null;
+
+    /**
+     * The values of all {@code @SuppressWarnings} annotations on the declarations in {@link
+     * #suppressionIndexRoot} and on its package.
+     */
+    private String[] rootSuppressWarnings;
+
+    /**
+     * Whether each error key may be suppressed in {@link #suppressionIndexRoot}, by one of {@link
+     * #rootSuppressWarnings} or by the {@code -AsuppressWarnings} command-line argument.
+     */
+    private final Map<String, Boolean> suppressibleErrKeys = new HashMap<>();
+
+    /**
+     * The tree of the last call of {@link #shouldSuppressWarnings(Tree, String)}, which is often
+     * made twice for the same diagnostic: before its arguments are formatted, and when it is
+     * reported.
+     */
+    private /*@Nullable*/ Tree lastSuppressionTree = null;
+
+    /** The error key of the last call of {@link #shouldSuppressWarnings(Tree, String)}. */
+    private /*@Nullable*/ String lastSuppressionErrKey = null;
+
+    /** The result of the last call of {@link #shouldSuppressWarnings(Tree, String)}. */
+    private boolean lastSuppressionResult = false;
+
     /**
      * Regular expression pattern to specify Java classes that are not annotated, so warnings about
      * uses of them should be suppressed.
@@ -461,6 +532,118 @@ public abstract class SourceChecker extends AbstractTypeProcessor
         return upstreamCheckerNames;
     }
 
+    /**
+     * The CFG cache shared by this checker and all checkers it runs, or null if they do not share
+     * CFGs. Only used by the checker that runs all others; see {@link #getCFGCache()}.
+     */
+    private CFGCache cfgCache = null;
+
+    /** Whether {@link #cfgCache} has been initialized. */
+    private boolean cfgCacheInitialized = false;
+
+    /**
+     * Returns whether this checker and the checkers it runs, that is, the subcheckers of a
+     * compound checker or the component checkers of an aggregate checker, should share the control
+     * flow graphs they build. Each CFG is then built only once rather than once per checker. Only
+     * called on the checker that runs all others.
+     *
+     * <p>By default, CFGs are shared if the -AshareCFGs command-line option is supplied.
+     *
+     * @return whether this checker and the checkers it runs should share CFGs
+     */
+    protected boolean shouldShareCFGs() {
+        return hasOption("shareCFGs");
+    }
+
+    /**
+     * Returns the CFG cache that is shared by all checkers run by the checker that runs all
+     * others, including that checker itself. Returns null if CFGs are not shared.
+     *
+     * @return the shared CFG cache or null if CFGs are not shared
+     */
+    public CFGCache getCFGCache() {
+        if (parentChecker != null) {
+            return parentChecker.getCFGCache();
+        }
+        if (!cfgCacheInitialized) {
+            cfgCache = shouldShareCFGs() ? new CFGCache() : null;
+            cfgCacheInitialized = true;
+        }
+        return cfgCache;
+    }
+
+    /**
+     * Returns the checker that runs this checker and all others, that is, the checker that was
+     * invoked by the compiler.
+     */
+    private SourceChecker getRootChecker() {
+        SourceChecker checker = this;
+        while (checker.parentChecker != null) {
+            checker = checker.parentChecker;
+        }
+        return checker;
+    }
+
+    /**
+     * Returns the number of errors issued so far by the compiler and all checkers.
+     *
+     * @return the number of errors issued so far
+     */
+    protected int getErrorCount() {
+        Context context = ((JavacProcessingEnvironment) processingEnv).getContext();
+        return Log.instance(context).nerrors;
+    }
+
+    /**
+     * Reports a diagnostic through the compiler, and records it for the result cache if the
+     * diagnostics of the current class are being recorded.
+     *
+     * @param kind the kind of diagnostic
+     * @param text the text of the diagnostic
+     * @param source the element or tree the diagnostic is about, or null
+     */
+    private void printMessage(
+            Diagnostic.Kind kind, CharSequence text, /*@Nullable*/ Object source) {
+        SourceChecker rootChecker = getRootChecker();
+        if (rootChecker.recordedDiagnostics != null) {
+            if (source instanceof Tree) {
+                Tree tree = (Tree) source;
+                rootChecker.recordedDiagnostics.add(
+                        new CheckerResultCache.CachedDiagnostic(
+                                kind, tree.getKind(), ((JCTree) tree).pos, text.toString()));
+            } else {
+                // Only the positions of trees are stored.
+                rootChecker.recordedDiagnostics = null;
+            }
+        }
+        printMessage(kind, text, source, currentRoot);
+    }
+
+    /**
+     * Reports a diagnostic through the compiler.
+     *
+     * @param kind the kind of diagnostic
+     * @param text the text of the diagnostic
+     * @param source the element or tree the diagnostic is about, or null
+     * @param root the compilation unit that contains source
+     */
+    private void printMessage(
+            Diagnostic.Kind kind,
+            CharSequence text,
+            /*@Nullable*/ Object source,
+            CompilationUnitTree root) {
+        if (messager == null) {
+            messager = processingEnv.getMessager();
+        }
+        if (source instanceof Element) {
+            messager.printMessage(kind, text, (Element) source);
+        } else if (source instanceof Tree) {
+            Trees.instance(processingEnv).printMessage(kind, text, (Tree) source, root);
+        } else {
+            messager.printMessage(kind, text);
+        }
+    }
+
     /** @return the {@link CFContext} used by this checker */
     public CFContext getContext() {
         return this;
@@ -515,7 +698,8 @@ public abstract class SourceChecker extends AbstractTypeProcessor
      * <p>As a default, this implementation builds a {@link Properties} out of file {@code
      * messages.properties}. It accumulates all the properties files in the Java class hierarchy
      * from the checker up to {@code SourceChecker}. This permits subclasses to inherit default
-     * messages while being able to override them.
+     * messages while being able to override them. The files are read when the first message is
+     * reported, so a checker that issues no messages does not read them.
      *
      * @return a {@link Properties} that maps error keys to error message text
      */
@@ -783,10 +967,7 @@ public abstract class SourceChecker extends AbstractTypeProcessor
             }
         }
 
-        if (this.messager == null) {
-            messager = processingEnv.getMessager();
-        }
-        this.messager.printMessage(javax.tools.Diagnostic.Kind.ERROR, msg);
+        printMessage(javax.tools.Diagnostic.Kind.ERROR, msg, null);
     }
 
     /**
@@ -803,6 +984,8 @@ public abstract class SourceChecker extends AbstractTypeProcessor
     public void typeProcessingStart() {
         try {
             super.typeProcessingStart();
+            // Stub files are parsed anew for each compilation, so their warnings are issued anew.
+            StubParser.clearWarnings();
             initChecker();
             if (this.messager == null) {
                 messager = processingEnv.getMessager();
@@ -844,7 +1027,6 @@ public abstract class SourceChecker extends AbstractTypeProcessor
         this.trees = trees;
 
         this.messager = processingEnv.getMessager();
-        this.messages = getMessages();
 
         this.visitor = createSourceVisitor();
 
@@ -917,15 +1099,16 @@ public abstract class SourceChecker extends AbstractTypeProcessor
         Context context = ((JavacProcessingEnvironment) processingEnv).getContext();
         com.sun.tools.javac.code.Source source = com.sun.tools.javac.code.Source.instance(context);
         if ((!warnedAboutSourceLevel) && (!source.allowTypeAnnotations())) {
-            messager.printMessage(
+            printMessage(
                     javax.tools.Diagnostic.Kind.WARNING,
-                    "-source " + source.name + " does not support type annotations");
+                    "-source " + source.name + " does not support type annotations",
+                    null);
             warnedAboutSourceLevel = true;
         }
 
-        Log log = Log.instance(context);
-        if (log.nerrors > this.errsOnLastExit) {
-            this.errsOnLastExit = log.nerrors;
+        int nerrors = getErrorCount();
+        if (nerrors > this.errsOnLastExit) {
+            this.errsOnLastExit = nerrors;
             previousErrorCompilationUnit = p.getCompilationUnit();
             return;
         }
@@ -953,10 +1136,80 @@ public abstract class SourceChecker extends AbstractTypeProcessor
         } finally {
             // Also add possibly deferred diagnostics, which will get published back in
             // AbstractTypeProcessor.
-            this.errsOnLastExit = log.nerrors;
+            this.errsOnLastExit = getErrorCount();
         }
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * <p>If the {@code -AresultCache} option is given, the diagnostics that were issued when the
+     * class was last type-checked with the same inputs are reported again instead, if there are
+     * any. Otherwise, the diagnostics issued by this checker and the checkers it runs are stored
+     * for the next compilation. See {@link CheckerResultCache}.
+     */
+    @Override
+    protected void typeProcessClass(TypeElement e, TreePath p) {
+        if (resultCache == null && hasOption("resultCache") && !hasOption("infer")) {
+            resultCache = new CheckerResultCache(new File(getOption("resultCache")));
+        }
+        if (resultCache == null
+                || e == null
+                || p == null
+                || getErrorCount() > this.errsOnLastExit
+                || p.getCompilationUnit() == previousErrorCompilationUnit) {
+            typeProcess(e, p);
+            return;
+        }
+        String key = resultCache.key(this, e, p);
+        if (key == null) {
+            typeProcess(e, p);
+            return;
+        }
+        List<CheckerResultCache.CachedDiagnostic> cached = resultCache.load(key);
+        if (cached != null && replayDiagnostics(cached, p.getCompilationUnit())) {
+            this.errsOnLastExit = getErrorCount();
+            return;
+        }
+
+        List<CheckerResultCache.CachedDiagnostic> diagnostics;
+        recordedDiagnostics = new ArrayList<>();
+        try {
+            typeProcess(e, p);
+        } finally {
+            diagnostics = recordedDiagnostics;
+            recordedDiagnostics = null;
+        }
+        if (diagnostics != null) {
+            resultCache.store(key, diagnostics);
+        }
+    }
+
+    /**
+     * Reports stored diagnostics again.
+     *
+     * @param diagnostics the diagnostics to report
+     * @param root the compilation unit of the class that the diagnostics were issued for
+     * @return true if the diagnostics were reported, false if root does not contain one of their
+     *     trees, in which case none was reported
+     */
+    private boolean replayDiagnostics(
+            List<CheckerResultCache.CachedDiagnostic> diagnostics, CompilationUnitTree root) {
+        List<Tree> trees = new ArrayList<>(diagnostics.size());
+        for (CheckerResultCache.CachedDiagnostic diagnostic : diagnostics) {
+            Tree tree = diagnostic.findTree(root);
+            if (tree == null) {
+                return false;
+            }
+            trees.add(tree);
+        }
+        for (int i = 0; i < diagnostics.size(); i++) {
+            CheckerResultCache.CachedDiagnostic diagnostic = diagnostics.get(i);
+            printMessage(diagnostic.kind, diagnostic.text, trees.get(i), root);
+        }
+        return true;
+    }
+
     private CheckerError wrapThrowableAsCheckerError(
             String where, Throwable t, /*@Nullable*/ TreePath p) {
         return new CheckerError(
@@ -1012,6 +1265,7 @@ public abstract class SourceChecker extends AbstractTypeProcessor
      * localized message is found.
      */
     protected String fullMessageOf(String messageKey, String defValue) {
+        Properties messages = getMessages();
         String key = messageKey;
 
         do {
@@ -1044,8 +1298,6 @@ public abstract class SourceChecker extends AbstractTypeProcessor
             /*@CompilerMessageKey*/ String msgKey,
             Object... args) {
 
-        assert messages != null : "null messages";
-
         if (args != null) {
             for (int i = 0; i < args.length; ++i) {
                 if (args[i] == null) {
@@ -1138,14 +1390,10 @@ public abstract class SourceChecker extends AbstractTypeProcessor
             messageText = messageText.replaceAll("\n", LINE_SEPARATOR);
         }
 
-        if (source instanceof Element) {
-            messager.printMessage(kind, messageText, (Element) source);
-        } else if (source instanceof Tree) {
-            Trees.instance(processingEnv)
-                    .printMessage(kind, messageText, (Tree) source, currentRoot);
-        } else {
+        if (!(source instanceof Element) && !(source instanceof Tree)) {
             ErrorReporter.errorAbort("invalid position source: " + source.getClass().getName());
         }
+        printMessage(kind, messageText, source);
     }
 
     /**
@@ -1156,7 +1404,7 @@ public abstract class SourceChecker extends AbstractTypeProcessor
      */
     protected Object processArg(Object arg) {
         // Check to see if the argument itself is a property to be expanded
-        return messages.getProperty(arg.toString(), arg.toString());
+        return getMessages().getProperty(arg.toString(), arg.toString());
     }
 
     /**
@@ -1172,7 +1420,7 @@ public abstract class SourceChecker extends AbstractTypeProcessor
      */
     public void message(Diagnostic.Kind kind, String msg, Object... args) {
         if (messager != null) {
-            messager.printMessage(kind, String.format(msg, args));
+            printMessage(kind, String.format(msg, args), null);
         } else {
             System.err.println(kind + ": " + String.format(msg, args));
         }
@@ -1298,6 +1546,40 @@ public abstract class SourceChecker extends AbstractTypeProcessor
             return false;
         }
 
+        if (tree == lastSuppressionTree && errKey.equals(lastSuppressionErrKey)) {
+            return lastSuppressionResult;
+        }
+        boolean result = computeShouldSuppressWarnings(tree, errKey);
+        lastSuppressionTree = tree;
+        lastSuppressionErrKey = errKey;
+        lastSuppressionResult = result;
+        return result;
+    }
+
+    /**
+     * Determines whether all the warnings pertaining to a given tree should be suppressed, as
+     * described in {@link #shouldSuppressWarnings(Tree, String)}.
+     *
+     * <p>Finding the path to the tree is expensive, because it searches the whole compilation unit.
+     * It is avoided if no {@code @SuppressWarnings} annotation in the compilation unit suppresses
+     * the error key, and if {@code -AsuppressWarnings} suppresses it everywhere.
+     */
+    private boolean computeShouldSuppressWarnings(Tree tree, String errKey) {
+        if (currentRoot != null && !useUncheckedCodeDefault("source")) {
+            if (!isSuppressibleInCurrentRoot(errKey)) {
+                return false;
+            }
+            if (this.suppressWarnings == null) {
+                this.suppressWarnings = createSuppressWarnings(getOptions());
+            }
+            if (checkSuppressWarnings(this.suppressWarnings, errKey)
+                    && isInTypeDeclaration(tree)) {
+                // The command-line argument suppresses the warning at the innermost
+                // declaration that encloses the tree.
+                return true;
+            }
+        }
+
         /*@Nullable*/ TreePath path = trees.getPath(this.currentRoot, tree);
         if (path == null) {
             return false;
@@ -1349,6 +1631,91 @@ public abstract class SourceChecker extends AbstractTypeProcessor
         return false;
     }
 
+    /**
+     * Returns true if a warning with key {@code errKey} may be suppressed somewhere in the current
+     * compilation unit, by a {@code @SuppressWarnings} annotation on a declaration in it or on its
+     * package, or by the {@code -AsuppressWarnings} command-line argument. The values of the
+     * annotations are collected once per compilation unit, and the answer is cached per error key.
+     *
+     * @param errKey the error key the checker is emitting
+     * @return false if no warning with key errKey can be suppressed in the current compilation unit
+     */
+    private boolean isSuppressibleInCurrentRoot(String errKey) {
+        if (suppressionIndexRoot != currentRoot) {
+            final Set<String> values = new HashSet<>();
+            for (Tree typeDecl : currentRoot.getTypeDecls()) {
+                Element elt = InternalUtils.symbol(typeDecl);
+                if (elt != null) {
+                    addSuppressWarnings(ElementUtils.enclosingPackage(elt), values);
+                }
+            }
+            new TreeScanner<Void, Void>() {
+                @Override
+                public Void visitClass(ClassTree node, Void p) {
+                    addSuppressWarnings(InternalUtils.symbol(node), values);
+                    return super.visitClass(node, p);
+                }
+
+                @Override
+                public Void visitMethod(MethodTree node, Void p) {
+                    addSuppressWarnings(InternalUtils.symbol(node), values);
+                    return super.visitMethod(node, p);
+                }
+
+                @Override
+                public Void visitVariable(VariableTree node, Void p) {
+                    addSuppressWarnings(InternalUtils.symbol(node), values);
+                    return super.visitVariable(node, p);
+                }
+            }.scan(currentRoot, null);
+            rootSuppressWarnings = values.toArray(new String[values.size()]);
+            suppressibleErrKeys.clear();
+            suppressionIndexRoot = currentRoot;
+        }
+
+        Boolean result = suppressibleErrKeys.get(errKey);
+        if (result == null) {
+            if (this.suppressWarnings == null) {
+                this.suppressWarnings = createSuppressWarnings(getOptions());
+            }
+            result =
+                    checkSuppressWarnings(rootSuppressWarnings, errKey)
+                            || checkSuppressWarnings(this.suppressWarnings, errKey);
+            suppressibleErrKeys.put(errKey, result);
+        }
+        return result;
+    }
+
+    /** Adds the values of the {@code @SuppressWarnings} annotation of {@code elt} to values. */
+    private static void addSuppressWarnings(/*@Nullable*/ Element elt, Set<String> values) {
+        if (elt == null) {
+            return;
+        }
+        SuppressWarnings anno = elt.getAnnotation(SuppressWarnings.class);
+        if (anno != null) {
+            values.addAll(Arrays.asList(anno.value()));
+        }
+    }
+
+    /**
+     * Returns true if {@code tree} is within the source code of a top-level type declaration of the
+     * current compilation unit, and therefore has an enclosing declaration.
+     */
+    private boolean isInTypeDeclaration(Tree tree) {
+        SourcePositions positions = trees.getSourcePositions();
+        long start = positions.getStartPosition(currentRoot, tree);
+        if (start == Diagnostic.NOPOS) {
+            return false;
+        }
+        for (Tree typeDecl : currentRoot.getTypeDecls()) {
+            if (positions.getStartPosition(currentRoot, typeDecl) <= start
+                    && start < positions.getEndPosition(currentRoot, typeDecl)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     /**
      * Should unchecked code defaults be used for the kind of code indicated by the parameter
      *
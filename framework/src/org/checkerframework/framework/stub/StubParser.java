@@ -1118,14 +1118,21 @@ public class StubParser {
 
     private static Set<String> warnings = new HashSet<String>();
 
+    /**
+     * Forgets the warnings issued so far, so that they are issued again by the next compilation
+     * that runs in the same JVM. Called at the start of each compilation.
+     */
+    public static void clearWarnings() {
+        warnings.clear();
+        nestedClassWarnings.clear();
+    }
+
     /**
      * Issues the given warning about missing elements, only if it has not been previously issued.
      */
     private void stubWarnIfNotFound(String warning) {
         if (warnings.add(warning) && (warnIfNotFound || debugStubParser)) {
-            processingEnv
-                    .getMessager()
-                    .printMessage(javax.tools.Diagnostic.Kind.WARNING, "StubParser: " + warning);
+            printMessage(javax.tools.Diagnostic.Kind.WARNING, warning);
         }
     }
 
@@ -1135,9 +1142,7 @@ public class StubParser {
      */
     private void stubWarnIfOverwritesBytecode(String warning) {
         if (warnings.add(warning) && (warnIfStubOverwritesBytecode || debugStubParser)) {
-            processingEnv
-                    .getMessager()
-                    .printMessage(javax.tools.Diagnostic.Kind.WARNING, "StubParser: " + warning);
+            printMessage(javax.tools.Diagnostic.Kind.WARNING, warning);
         }
     }
 
@@ -1147,20 +1152,24 @@ public class StubParser {
      */
     private void stubAlwaysWarn(String warning) {
         if (warnings.add(warning)) {
-            processingEnv
-                    .getMessager()
-                    .printMessage(javax.tools.Diagnostic.Kind.WARNING, "StubParser: " + warning);
+            printMessage(javax.tools.Diagnostic.Kind.WARNING, warning);
         }
     }
 
     private void stubDebug(String warning) {
         if (warnings.add(warning) && debugStubParser) {
-            processingEnv
-                    .getMessager()
-                    .printMessage(javax.tools.Diagnostic.Kind.NOTE, "StubParser: " + warning);
+            printMessage(javax.tools.Diagnostic.Kind.NOTE, warning);
         }
     }
 
+    /**
+     * Issues a diagnostic through the checker, so that it is handled like the checker's own
+     * diagnostics, for example by the result cache.
+     */
+    private void printMessage(javax.tools.Diagnostic.Kind kind, String warning) {
+        atypeFactory.getContext().getChecker().message(kind, "StubParser: %s", (Object) warning);
+    }
+
     private AnnotationMirror getAnnotation(
             AnnotationExpr annotation, Map<String, AnnotationMirror> supportedAnnotations) {
         AnnotationMirror annoMirror;
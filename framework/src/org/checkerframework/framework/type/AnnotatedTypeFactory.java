@@ -138,6 +138,11 @@ import org.checkerframework.javacutil.trees.DetachedVarSymbol;
  * AnnotatedTypeFactory#addComputedTypeAnnotations(Element, AnnotatedTypeMirror)} and {@link
  * #addComputedTypeAnnotations(Tree, AnnotatedTypeMirror)}.
  *
+ * <p>An AnnotatedTypeFactory is not thread-safe. Checkers run on the compiler's thread, because
+ * the compiler's own data structures, which every type factory uses, are not thread-safe. Neither
+ * the mutable state of a type factory nor the static state shared between type factories, such as
+ * the caches of {@link AnnotationUtils}, is synchronized.
+ *
  * @checker_framework.manual #creating-a-checker How to write a checker plug-in
  */
 public class AnnotatedTypeFactory implements AnnotationProvider {
@@ -306,6 +311,26 @@ public class AnnotatedTypeFactory implements AnnotationProvider {
     /** Mapping from an Element to the source Tree of the declaration. */
     private final Map<Element, Tree> elementToTreeCache;
 
+    /**
+     * Mapping from a receiver type and a member element to the type of the member when viewed as a
+     * member of the receiver type; before {@link #postAsMemberOf} is applied. Receiver types are
+     * compared structurally, see {@link HashcodeAtmVisitor}.
+     */
+    private final Map<Pair<AnnotatedTypeMirror, Element>, AnnotatedTypeMirror> asMemberOfCache;
+
+    /**
+     * Mapping from a type parameter element to a type variable for it whose bounds have been
+     * initialized but not annotated. Used by {@link BoundsInitializer} to initialize the bounds of
+     * other type variables for the same type parameter by copying.
+     */
+    final Map<Element, AnnotatedTypeVariable> typeVarBoundsTemplates;
+
+    /**
+     * Hash-conses the types stored in the caches of this factory, or null if that is disabled with
+     * the atfInternCachedTypes option (the default) or caching is disabled.
+     */
+    private final AnnotatedTypeInterner cachedTypeInterner;
+
     /**
      * Constructs a factory from the given {@link ProcessingEnvironment} instance and syntax tree
      * root. (These parameters are required so that the factory may conduct the appropriate
@@ -344,23 +369,38 @@ public class AnnotatedTypeFactory implements AnnotationProvider {
             this.fromTreeCache = CollectionUtils.createLRUCache(cacheSize);
             this.elementCache = CollectionUtils.createLRUCache(cacheSize);
             this.elementToTreeCache = CollectionUtils.createLRUCache(cacheSize);
+            this.asMemberOfCache = CollectionUtils.createLRUCache(cacheSize);
+            this.typeVarBoundsTemplates = CollectionUtils.createLRUCache(cacheSize);
+            this.cachedTypeInterner =
+                    checker.hasOption("atfInternCachedTypes") ? new AnnotatedTypeInterner() : null;
         } else {
             this.classAndMethodTreeCache = null;
             this.fromTreeCache = null;
             this.elementCache = null;
             this.elementToTreeCache = null;
+            this.asMemberOfCache = null;
+            this.typeVarBoundsTemplates = null;
+            this.cachedTypeInterner = null;
         }
 
+        this.treePathCache = new TreePathCacher(checker.hasOption("atfIndexTreePaths"));
+
         this.typeFormatter = createAnnotatedTypeFormatter();
         this.annotationFormatter = createAnnotationFormatter();
 
         infer = checker.hasOption("infer");
         if (infer) {
             checkInvalidOptionsInferSignatures();
+            List<String> moduleDirs =
+                    checker.hasOption("inferModuleDirs")
+                            ? Arrays.asList(
+                                    checker.getOption("inferModuleDirs").split(File.pathSeparator))
+                            : Collections.<String>emptyList();
             wholeProgramInference =
                     new WholeProgramInferenceScenes(
                             !"NullnessAnnotatedTypeFactory"
-                                    .equals(this.getClass().getSimpleName()));
+                                    .equals(this.getClass().getSimpleName()),
+                            moduleDirs);
         }
     }
 
@@ -509,6 +549,8 @@ public class AnnotatedTypeFactory implements AnnotationProvider {
             elementToTreeCache.clear();
             fromTreeCache.clear();
             classAndMethodTreeCache.clear();
+            // The member types may have been computed from trees of the compilation unit.
+            asMemberOfCache.clear();
 
             // There is no need to clear the following cache, it is limited by cache size and it
             // contents won't change between compilation units.
@@ -885,8 +927,11 @@ public class AnnotatedTypeFactory implements AnnotationProvider {
     // Factories for annotated types that account for implicit qualifiers
     // **********************************************************************
 
-    /** Mapping from a Tree to its TreePath */
-    private final TreePathCacher treePathCache = new TreePathCacher();
+    /**
+     * Mapping from a Tree to its TreePath. It indexes the parents of all trees of the current
+     * compilation unit if the atfIndexTreePaths option is given.
+     */
+    private final TreePathCacher treePathCache;
 
     /**
      * Returns the int supplied to the checker via the atfCacheSize option or the default cache
@@ -907,6 +952,20 @@ public class AnnotatedTypeFactory implements AnnotationProvider {
         }
     }
 
+    /**
+     * Returns a copy of {@code type} to store in a cache of this factory. The copy must not be
+     * modified; it may be shared with other cache entries, see {@link AnnotatedTypeInterner}.
+     *
+     * @param type a type to cache
+     * @return a copy of type for the cache
+     */
+    private AnnotatedTypeMirror copyForCache(AnnotatedTypeMirror type) {
+        if (cachedTypeInterner == null) {
+            return type.deepCopy();
+        }
+        return cachedTypeInterner.intern(type);
+    }
+
     /**
      * Returns an AnnotatedTypeMirror representing the annotated type of {@code elt}.
      *
@@ -974,7 +1033,7 @@ public class AnnotatedTypeFactory implements AnnotationProvider {
         if (TreeUtils.isClassTree(tree) || tree.getKind() == Tree.Kind.METHOD) {
             // Don't cache VARIABLE
             if (shouldCache) {
-                classAndMethodTreeCache.put(tree, type.deepCopy());
+                classAndMethodTreeCache.put(tree, copyForCache(type));
             }
         } else {
             // No caching otherwise
@@ -1092,7 +1151,7 @@ public class AnnotatedTypeFactory implements AnnotationProvider {
         // method before the stub files are fully read can return incorrect
         // results.
         if (shouldCache && typesFromStubFiles != null) {
-            elementCache.put(elt, type.deepCopy());
+            elementCache.put(elt, copyForCache(type));
         }
         return type;
     }
@@ -1161,7 +1220,7 @@ public class AnnotatedTypeFactory implements AnnotationProvider {
         AnnotatedTypeMirror result = TypeFromTree.fromMember(this, tree);
         annotateInheritedFromClass(result);
         if (shouldCache) {
-            fromTreeCache.put(tree, result.deepCopy());
+            fromTreeCache.put(tree, copyForCache(result));
         }
         return result;
     }
@@ -1192,7 +1251,7 @@ public class AnnotatedTypeFactory implements AnnotationProvider {
         annotateInheritedFromClass(result);
 
         if (shouldCache) {
-            fromTreeCache.put(tree, result.deepCopy());
+            fromTreeCache.put(tree, copyForCache(result));
         }
         return result;
     }
@@ -1220,7 +1279,7 @@ public class AnnotatedTypeFactory implements AnnotationProvider {
 
         annotateInheritedFromClass(result);
         if (shouldCache) {
-            fromTreeCache.put(tree, result.deepCopy());
+            fromTreeCache.put(tree, copyForCache(result));
         }
         return result;
     }
@@ -1279,6 +1338,41 @@ public class AnnotatedTypeFactory implements AnnotationProvider {
         }
     }
 
+    /**
+     * Returns the type of {@code member} when viewed as a member of {@code receiver}, as previously
+     * stored by {@link #cacheAsMemberOf}, or null if it is not cached. {@link #postAsMemberOf} has
+     * not been applied to the result.
+     *
+     * @param receiver the annotated type of the receiver
+     * @param member the element of the field or method
+     * @return a copy of the cached member type, or null
+     * @see AnnotatedTypes#asMemberOf(Types, AnnotatedTypeFactory, AnnotatedTypeMirror, Element)
+     */
+    public /*@Nullable*/ AnnotatedTypeMirror getCachedAsMemberOf(
+            AnnotatedTypeMirror receiver, Element member) {
+        if (!shouldCache) {
+            return null;
+        }
+        AnnotatedTypeMirror memberType = asMemberOfCache.get(Pair.of(receiver, member));
+        return memberType == null ? null : memberType.deepCopy();
+    }
+
+    /**
+     * Caches the type of {@code member} when viewed as a member of {@code receiver}, before {@link
+     * #postAsMemberOf} is applied.
+     *
+     * @param receiver the annotated type of the receiver
+     * @param member the element of the field or method
+     * @param memberType the type of member as a member of receiver
+     */
+    public void cacheAsMemberOf(
+            AnnotatedTypeMirror receiver, Element member, AnnotatedTypeMirror memberType) {
+        if (shouldCache) {
+            asMemberOfCache.put(
+                    Pair.of(copyForCache(receiver), member), copyForCache(memberType));
+        }
+    }
+
     /**
      * A callback method for the AnnotatedTypeFactory subtypes to customize
      * AnnotatedTypes.asMemberOf(). Overriding methods should merely change the annotations on the
@@ -2607,7 +2701,7 @@ public class AnnotatedTypeFactory implements AnnotationProvider {
 
         if (node == null) return null;
 
-        if (treePathCache.isCached(node)) {
+        if (treePathCache.isCached(node) || treePathCache.indexesParents()) {
             return treePathCache.getPath(root, node);
         }
         ;
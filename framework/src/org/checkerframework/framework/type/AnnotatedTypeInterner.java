@@ -0,0 +1,85 @@
+package org.checkerframework.framework.type;
+
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.WeakHashMap;
+import org.checkerframework.framework.type.AnnotatedTypeMirror.AnnotatedArrayType;
+import org.checkerframework.framework.type.AnnotatedTypeMirror.AnnotatedDeclaredType;
+
+/**
+ * Hash-conses annotated types: for each set of structurally equal types, as determined by {@link
+ * EqualityAtmComparer} and {@link HashcodeAtmVisitor}, it returns one canonical instance. Equality
+ * checks between canonical instances short-circuit on identity.
+ *
+ * <p>Annotated types are mutable, so a canonical instance must never be modified. It may only be
+ * stored where it is treated as immutable, such as in the caches of {@link AnnotatedTypeFactory},
+ * which copy a type before returning it. Enabled with the {@code -AatfInternCachedTypes} option.
+ *
+ * <p>Only types without type variables, wildcards, and enclosing types are interned: primitive
+ * types, declared types whose type arguments can be interned, and arrays of these. Structural
+ * equality does not take everything into account for other types, such as whether a declared type
+ * is the type of a declaration.
+ *
+ * <p>Canonical instances are only weakly referenced, so types that are no longer used elsewhere
+ * may be garbage collected.
+ */
+public class AnnotatedTypeInterner {
+
+    /** Maps each canonical instance to itself. */
+    private final Map<AnnotatedTypeMirror, WeakReference<AnnotatedTypeMirror>> canonicalTypes =
+            new WeakHashMap<>();
+
+    /**
+     * Returns a canonical instance that is structurally equal to {@code type}, or a copy of type if
+     * it cannot be interned. type itself is never returned, so it may still be modified by the
+     * caller.
+     *
+     * @param type the type to intern
+     * @return an instance equal to type that must not be modified
+     */
+    public AnnotatedTypeMirror intern(AnnotatedTypeMirror type) {
+        if (!canIntern(type)) {
+            return type.deepCopy();
+        }
+        WeakReference<AnnotatedTypeMirror> ref = canonicalTypes.get(type);
+        AnnotatedTypeMirror canonical = ref == null ? null : ref.get();
+        if (canonical != null) {
+            return canonical;
+        }
+        canonical = type.deepCopy();
+        canonicalTypes.put(canonical, new WeakReference<>(canonical));
+        return canonical;
+    }
+
+    /**
+     * Returns true if type and all of its component types are of a kind whose structural equality
+     * is exact.
+     *
+     * @param type a type
+     * @return true if type can be interned
+     */
+    private static boolean canIntern(AnnotatedTypeMirror type) {
+        if (type.getKind().isPrimitive()) {
+            return true;
+        }
+        switch (type.getKind()) {
+            case ARRAY:
+                return canIntern(((AnnotatedArrayType) type).getComponentType());
+            case DECLARED:
+                AnnotatedDeclaredType declaredType = (AnnotatedDeclaredType) type;
+                if (declaredType.isDeclaration()
+                        || declaredType.wasRaw()
+                        || declaredType.getEnclosingType() != null) {
+                    return false;
+                }
+                for (AnnotatedTypeMirror typeArg : declaredType.getTypeArguments()) {
+                    if (!canIntern(typeArg)) {
+                        return false;
+                    }
+                }
+                return true;
+            default:
+                return false;
+        }
+    }
+}
@@ -9,6 +9,7 @@ import org.checkerframework.checker.interning.qual.*;
 import com.sun.tools.javac.code.Symbol.MethodSymbol;
 import java.lang.annotation.Annotation;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Set;
@@ -125,6 +126,27 @@ public abstract class AnnotatedTypeMirror {
         return result;
     }
 
+    /**
+     * Returns an unmodifiable copy of {@code list} without spare capacity: the shared empty list, a
+     * singleton list, or a list backed by an array of the exact size. Annotated types are created
+     * in large numbers, so the lists of their component types should be as small as possible.
+     *
+     * @param list the list to copy
+     * @return an unmodifiable copy of list
+     */
+    static <T> List<T> compactList(List<? extends T> list) {
+        switch (list.size()) {
+            case 0:
+                return Collections.emptyList();
+            case 1:
+                return Collections.<T>singletonList(list.get(0));
+            default:
+                @SuppressWarnings("unchecked")
+                T[] array = (T[]) list.toArray();
+                return Collections.unmodifiableList(Arrays.asList(array));
+        }
+    }
+
     protected static final EqualityAtmComparer equalityComparer = new EqualityAtmComparer();
     protected static final HashcodeAtmVisitor hashcodeVisitor = new HashcodeAtmVisitor();
 
@@ -139,7 +161,7 @@ public abstract class AnnotatedTypeMirror {
     // the class name of Annotation instead.
     // Caution: Assumes that a type can have at most one AnnotationMirror for
     // any Annotation type. JSR308 is pushing to have this change.
-    private final Set<AnnotationMirror> annotations = AnnotationUtils.createAnnotationSet();
+    private final Set<AnnotationMirror> annotations = new CompactAnnotationSet();
 
     /** The explicitly written annotations on this type. */
     // TODO: use this to cache the result once computed? For generic types?
@@ -912,13 +934,13 @@ public abstract class AnnotatedTypeMirror {
             } else {
                 if (isDeclaration()) {
                     // TODO: check that all args are really declarations
-                    typeArgs = Collections.unmodifiableList(ts);
+                    typeArgs = compactList(ts);
                 } else {
-                    List<AnnotatedTypeMirror> uses = new ArrayList<>();
+                    List<AnnotatedTypeMirror> uses = new ArrayList<>(ts.size());
                     for (AnnotatedTypeMirror t : ts) {
                         uses.add(t.asUse());
                     }
-                    typeArgs = Collections.unmodifiableList(uses);
+                    typeArgs = compactList(uses);
                 }
             }
         }
@@ -945,7 +967,7 @@ public abstract class AnnotatedTypeMirror {
                         typeArgs.add(createType(t, atypeFactory, declaration));
                     }
                 }
-                typeArgs = Collections.unmodifiableList(typeArgs);
+                typeArgs = compactList(typeArgs);
             }
             return typeArgs;
         }
@@ -976,7 +998,7 @@ public abstract class AnnotatedTypeMirror {
         @Override
         public List<AnnotatedDeclaredType> directSuperTypes() {
             if (supertypes == null) {
-                supertypes = Collections.unmodifiableList(SupertypeFinder.directSuperTypes(this));
+                supertypes = compactList(SupertypeFinder.directSuperTypes(this));
             }
             return supertypes;
         }
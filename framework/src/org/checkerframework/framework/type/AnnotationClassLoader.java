@@ -44,6 +44,9 @@ import org.checkerframework.checker.nullness.qual.Nullable;
  * <p>To load annotations using this class, their directory structure and package structure must be
  * identical.
  *
+ * <p>If the qual package contains a {@link QualifierManifest}, the annotation classes listed in it
+ * are loaded, and the package is not scanned.
+ *
  * <p>Only annotation classes that have the {@link Target} meta-annotation with the value of {@link
  * ElementType#TYPE_USE} (and optionally {@link ElementType#TYPE_PARAMETER}) are loaded. If it has
  * other {@link ElementType} values, it won't be loaded. Other annotation classes must be manually
@@ -340,11 +343,8 @@ public class AnnotationClassLoader {
         try {
             directoryURL = new File(absolutePathToDirectory).toURI().toURL();
         } catch (MalformedURLException e) {
-            processingEnv
-                    .getMessager()
-                    .printMessage(
-                            Kind.NOTE,
-                            "Directory URL " + absolutePathToDirectory + " is malformed");
+            checker.message(
+                    Kind.NOTE, "Directory URL %s is malformed", (Object) absolutePathToDirectory);
         }
 
         return directoryURL;
@@ -363,9 +363,7 @@ public class AnnotationClassLoader {
         try {
             jarURL = new URL("jar:file:" + absolutePathToJarFile + "!/");
         } catch (MalformedURLException e) {
-            processingEnv
-                    .getMessager()
-                    .printMessage(Kind.NOTE, "Jar URL " + absolutePathToJarFile + " is malformed");
+            checker.message(Kind.NOTE, "Jar URL %s is malformed", (Object) absolutePathToJarFile);
         }
 
         return jarURL;
@@ -478,11 +476,12 @@ public class AnnotationClassLoader {
                 return loadedAnnotations;
             }
 
-            // retrieve the fully qualified class names of the annotations
-            Set<String> annotationNames = null;
+            // retrieve the fully qualified class names of the annotations, from the
+            // manifest of the qual package if it has one
+            Set<String> annotationNames = getAnnotationNamesFromManifest();
 
-            // see whether the resource URL has a protocol of jar or file
-            if (resourceURL.getProtocol().equals("jar")) {
+            // otherwise, see whether the resource URL has a protocol of jar or file
+            if (annotationNames == null && resourceURL.getProtocol().equals("jar")) {
                 // if the checker class file is contained within a jar, then the
                 // resource URL for the qual directory will have the protocol
                 // "jar". This means the whole checker is loaded as a jar file.
@@ -500,7 +499,7 @@ public class AnnotationClassLoader {
                             "AnnotatedTypeLoader: cannot open the Jar file "
                                     + resourceURL.getFile());
                 }
-            } else if (resourceURL.getProtocol().equals("file")) {
+            } else if (annotationNames == null && resourceURL.getProtocol().equals("file")) {
                 // if the checker class file is found within the file system itself
                 // within some directory (usually development build directories),
                 // then process the package as a file directory in the file system
@@ -518,6 +517,29 @@ public class AnnotationClassLoader {
         return loadedAnnotations;
     }
 
+    /**
+     * Retrieves the annotation class names from the {@link QualifierManifest} of the qual package,
+     * if it is in the same jar or directory as the package. If this method returns null, the
+     * package is scanned instead.
+     *
+     * @return a set of fully qualified class names of the annotations, or null if there is no
+     *     manifest
+     */
+    protected /*@Nullable*/ Set<String> getAnnotationNamesFromManifest() {
+        ClassLoader applicationClassloader = getAppClassLoader();
+        if (applicationClassloader == null) {
+            return null;
+        }
+        URL manifestURL =
+                applicationClassloader.getResource(
+                        packageNameWithSlashes + SLASH + QualifierManifest.FILE_NAME);
+        // a manifest in another jar or directory may be out of date
+        if (manifestURL == null || !manifestURL.toString().startsWith(resourceURL.toString())) {
+            return null;
+        }
+        return QualifierManifest.read(manifestURL);
+    }
+
     /**
      * Retrieves the annotation class file names from the qual directory contained inside a jar
      *
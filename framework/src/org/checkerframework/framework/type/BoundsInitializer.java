@@ -14,6 +14,8 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import javax.lang.model.type.ArrayType;
 import javax.lang.model.type.DeclaredType;
 import javax.lang.model.type.IntersectionType;
 import javax.lang.model.type.TypeKind;
@@ -33,6 +35,7 @@ import org.checkerframework.framework.type.AnnotatedTypeMirror.AnnotatedWildcard
 import org.checkerframework.framework.type.visitor.AnnotatedTypeVisitor;
 import org.checkerframework.framework.util.PluginUtil;
 import org.checkerframework.javacutil.ErrorReporter;
+import org.checkerframework.javacutil.InternalUtils;
 import org.checkerframework.javacutil.TypesUtils;
 
 /**
@@ -55,19 +58,154 @@ public class BoundsInitializer {
     public static void initializeBounds(final AnnotatedTypeVariable typeVar) {
         final Set<AnnotationMirror> annos = saveAnnotations(typeVar);
 
-        InitializerVisitor visitor =
-                new InitializerVisitor(new TypeVariableStructure(null, typeVar));
-        visitor.initializeLowerBound(typeVar);
-        visitor.resolveTypeVarReferences(typeVar);
+        if (!initializeBoundsFromTemplate(typeVar)) {
+            InitializerVisitor visitor =
+                    new InitializerVisitor(new TypeVariableStructure(null, typeVar));
+            visitor.initializeLowerBound(typeVar);
+            visitor.resolveTypeVarReferences(typeVar);
 
-        InitializerVisitor visitor2 =
-                new InitializerVisitor(new TypeVariableStructure(null, typeVar));
-        visitor2.initializeUpperBound(typeVar);
-        visitor2.resolveTypeVarReferences(typeVar);
+            InitializerVisitor visitor2 =
+                    new InitializerVisitor(new TypeVariableStructure(null, typeVar));
+            visitor2.initializeUpperBound(typeVar);
+            visitor2.resolveTypeVarReferences(typeVar);
+
+            saveBoundsTemplate(typeVar);
+        }
 
         restoreAnnotations(typeVar, annos);
     }
 
+    /**
+     * Initializes the bounds of {@code typeVar} with copies of the bounds of a type variable for the
+     * same type parameter that was initialized before, if there is one. This avoids re-walking the
+     * bounds and rebuilding their bound structures.
+     *
+     * @param typeVar a type variable without primary annotations
+     * @return whether the bounds of typeVar were initialized
+     */
+    private static boolean initializeBoundsFromTemplate(final AnnotatedTypeVariable typeVar) {
+        final Map<Element, AnnotatedTypeVariable> templates =
+                typeVar.atypeFactory.typeVarBoundsTemplates;
+        if (templates == null) {
+            return false;
+        }
+        final AnnotatedTypeVariable template =
+                templates.get(typeVar.getUnderlyingType().asElement());
+        if (template == null || !haveSameBounds(template, typeVar)) {
+            return false;
+        }
+
+        final AnnotatedTypeVariable copy = template.deepCopy();
+        typeVar.setLowerBound(copy.getLowerBoundField());
+        typeVar.setUpperBound(copy.getUpperBoundField());
+        return true;
+    }
+
+    /**
+     * Stores a copy of {@code typeVar}, whose bounds were just initialized, so that the bounds of
+     * later type variables for the same type parameter can be copied from it.
+     *
+     * <p>No copy is stored if the bounds of typeVar refer back to it, as in {@code T extends
+     * Comparable<T>}. The bounds of a copy of such a type variable refer to the copy instead of to
+     * the type variable whose bounds are set, so they would differ from freshly initialized bounds.
+     *
+     * @param typeVar a type variable without primary annotations whose bounds are initialized
+     */
+    private static void saveBoundsTemplate(final AnnotatedTypeVariable typeVar) {
+        final Map<Element, AnnotatedTypeVariable> templates =
+                typeVar.atypeFactory.typeVarBoundsTemplates;
+        final TypeVariable underlyingType = typeVar.getUnderlyingType();
+        // Captured type variables are created anew for each capture, so they are not reused.
+        if (templates != null
+                && !InternalUtils.isCaptured(underlyingType)
+                && !hasRecursiveBounds(underlyingType)) {
+            templates.put(underlyingType.asElement(), typeVar.deepCopy());
+        }
+    }
+
+    /**
+     * Returns whether the bounds of {@code typeVar} refer to typeVar itself, either directly as in
+     * {@code T extends Comparable<T>} or through the bounds of other type variables.
+     *
+     * @param typeVar a type variable
+     * @return whether the bounds of typeVar mention typeVar
+     */
+    private static boolean hasRecursiveBounds(final TypeVariable typeVar) {
+        final Element typeParameter = typeVar.asElement();
+        final Set<Element> visited = new HashSet<>();
+        return mentions(typeVar.getUpperBound(), typeParameter, visited)
+                || mentions(typeVar.getLowerBound(), typeParameter, visited);
+    }
+
+    /**
+     * Returns whether {@code type} contains a use of {@code typeParameter}, looking through the
+     * bounds of the type variables it contains.
+     *
+     * @param type the type to search
+     * @param typeParameter the type parameter to search for
+     * @param visited the type parameters whose bounds have already been searched
+     * @return whether type mentions typeParameter
+     */
+    private static boolean mentions(
+            final TypeMirror type, final Element typeParameter, final Set<Element> visited) {
+        if (type == null) {
+            return false;
+        }
+        switch (type.getKind()) {
+            case TYPEVAR:
+                final TypeVariable typeVar = (TypeVariable) type;
+                final Element element = typeVar.asElement();
+                if (element.equals(typeParameter)) {
+                    return true;
+                }
+                if (!visited.add(element)) {
+                    return false;
+                }
+                return mentions(typeVar.getUpperBound(), typeParameter, visited)
+                        || mentions(typeVar.getLowerBound(), typeParameter, visited);
+
+            case DECLARED:
+                for (final TypeMirror typeArg : ((DeclaredType) type).getTypeArguments()) {
+                    if (mentions(typeArg, typeParameter, visited)) {
+                        return true;
+                    }
+                }
+                return false;
+
+            case ARRAY:
+                return mentions(((ArrayType) type).getComponentType(), typeParameter, visited);
+
+            case WILDCARD:
+                final WildcardType wildcard = (WildcardType) type;
+                return mentions(wildcard.getExtendsBound(), typeParameter, visited)
+                        || mentions(wildcard.getSuperBound(), typeParameter, visited);
+
+            case INTERSECTION:
+                for (final TypeMirror bound : ((IntersectionType) type).getBounds()) {
+                    if (mentions(bound, typeParameter, visited)) {
+                        return true;
+                    }
+                }
+                return false;
+
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Returns whether the Java types of the bounds of the two type variables are the same objects.
+     * Uses of a type parameter share the bounds of its declaration, but type variables that javac
+     * created by substitution have bounds of their own.
+     */
+    private static boolean haveSameBounds(
+            final AnnotatedTypeVariable typeVar1, final AnnotatedTypeVariable typeVar2) {
+        final TypeVariable type1 = typeVar1.getUnderlyingType();
+        final TypeVariable type2 = typeVar2.getUnderlyingType();
+        return type1.getUpperBound() == type2.getUpperBound()
+                && type1.getLowerBound() == type2.getLowerBound();
+    }
+
     /**
      * If we are initializing a type variable with a primary annotation than we should first
      * initialize it as if it were a declaration (i.e. as if it had no primary annotations) and then
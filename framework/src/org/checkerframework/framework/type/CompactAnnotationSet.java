@@ -0,0 +1,201 @@
+package org.checkerframework.framework.type;
+
+import java.util.AbstractSet;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import javax.lang.model.element.AnnotationMirror;
+import org.checkerframework.javacutil.AnnotationUtils;
+
+/**
+ * The set of primary annotations of an {@link AnnotatedTypeMirror}. It behaves like the set
+ * returned by {@link AnnotationUtils#createAnnotationSet()}: it is ordered by {@link
+ * AnnotationUtils#annotationOrdering()} and holds at most one annotation that is equal by that
+ * ordering.
+ *
+ * <p>A type has one annotation per qualifier hierarchy, and most checkers have one or two
+ * hierarchies. Therefore, rather than a tree of entries, the set holds its single annotation in a
+ * field, or its annotations in a sorted array of the exact size. An empty set holds no other
+ * object at all.
+ *
+ * <p>The array is replaced rather than modified when the set changes. An iterator therefore
+ * iterates over the annotations that were in the set when it was created, even if the set is
+ * modified in the meantime. Unlike the iterators of the TreeSet that types used before, the
+ * iterators are not fail-fast: modifying the set while iterating over it never causes a {@link
+ * java.util.ConcurrentModificationException}.
+ */
+public final class CompactAnnotationSet extends AbstractSet<AnnotationMirror> {
+
+    /** The order of the annotations in the set. */
+    private static final Comparator<AnnotationMirror> ordering =
+            AnnotationUtils.annotationOrdering();
+
+    /** An empty array of annotations. */
+    private static final AnnotationMirror[] NO_ANNOTATIONS = new AnnotationMirror[0];
+
+    /**
+     * The annotations in the set: null if the set is empty, the annotation if there is exactly one,
+     * otherwise an array that is sorted by {@link #ordering}.
+     */
+    private Object elements = null;
+
+    /**
+     * Returns the annotations in the set as a sorted array, which must not be modified.
+     *
+     * @return the annotations in the set
+     */
+    private AnnotationMirror[] elementArray() {
+        if (elements == null) {
+            return NO_ANNOTATIONS;
+        } else if (elements instanceof AnnotationMirror) {
+            return new AnnotationMirror[] {(AnnotationMirror) elements};
+        } else {
+            return (AnnotationMirror[]) elements;
+        }
+    }
+
+    /**
+     * Sets the annotations in the set.
+     *
+     * @param array the annotations, sorted by {@link #ordering}
+     */
+    private void setElements(AnnotationMirror[] array) {
+        switch (array.length) {
+            case 0:
+                elements = null;
+                break;
+            case 1:
+                elements = array[0];
+                break;
+            default:
+                elements = array;
+        }
+    }
+
+    /**
+     * Returns the index of the annotation in {@code array} that is equal to {@code anno} by {@link
+     * #ordering}, or {@code -(insertion point) - 1} if there is none.
+     *
+     * @param array annotations sorted by {@link #ordering}
+     * @param anno the annotation to look for
+     * @return the index of anno in array, or a negative number if it is not in array
+     */
+    private static int indexOf(AnnotationMirror[] array, AnnotationMirror anno) {
+        for (int i = 0; i < array.length; i++) {
+            int cmp = ordering.compare(array[i], anno);
+            if (cmp == 0) {
+                return i;
+            } else if (cmp > 0) {
+                return -i - 1;
+            }
+        }
+        return -array.length - 1;
+    }
+
+    @Override
+    public int size() {
+        if (elements == null) {
+            return 0;
+        } else if (elements instanceof AnnotationMirror) {
+            return 1;
+        } else {
+            return ((AnnotationMirror[]) elements).length;
+        }
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return elements == null;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        if (!(o instanceof AnnotationMirror) || elements == null) {
+            return false;
+        } else if (elements instanceof AnnotationMirror) {
+            return ordering.compare((AnnotationMirror) elements, (AnnotationMirror) o) == 0;
+        } else {
+            return indexOf((AnnotationMirror[]) elements, (AnnotationMirror) o) >= 0;
+        }
+    }
+
+    @Override
+    public boolean add(AnnotationMirror anno) {
+        if (anno == null) {
+            throw new NullPointerException();
+        }
+        if (elements == null) {
+            elements = anno;
+            return true;
+        }
+        AnnotationMirror[] array = elementArray();
+        int index = indexOf(array, anno);
+        if (index >= 0) {
+            return false;
+        }
+        int insertAt = -index - 1;
+        AnnotationMirror[] newArray = new AnnotationMirror[array.length + 1];
+        System.arraycopy(array, 0, newArray, 0, insertAt);
+        newArray[insertAt] = anno;
+        System.arraycopy(array, insertAt, newArray, insertAt + 1, array.length - insertAt);
+        elements = newArray;
+        return true;
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        if (!(o instanceof AnnotationMirror) || elements == null) {
+            return false;
+        }
+        AnnotationMirror[] array = elementArray();
+        int index = indexOf(array, (AnnotationMirror) o);
+        if (index < 0) {
+            return false;
+        }
+        AnnotationMirror[] newArray = new AnnotationMirror[array.length - 1];
+        System.arraycopy(array, 0, newArray, 0, index);
+        System.arraycopy(array, index + 1, newArray, index, array.length - index - 1);
+        setElements(newArray);
+        return true;
+    }
+
+    @Override
+    public void clear() {
+        elements = null;
+    }
+
+    @Override
+    public Iterator<AnnotationMirror> iterator() {
+        final AnnotationMirror[] array = elementArray();
+        return new Iterator<AnnotationMirror>() {
+            /** The index of the next annotation to return. */
+            private int next = 0;
+
+            /** The annotation returned last, or null if it was removed or there is none. */
+            private AnnotationMirror last = null;
+
+            @Override
+            public boolean hasNext() {
+                return next < array.length;
+            }
+
+            @Override
+            public AnnotationMirror next() {
+                if (next >= array.length) {
+                    throw new NoSuchElementException();
+                }
+                last = array[next++];
+                return last;
+            }
+
+            @Override
+            public void remove() {
+                if (last == null) {
+                    throw new IllegalStateException();
+                }
+                CompactAnnotationSet.this.remove(last);
+                last = null;
+            }
+        };
+    }
+}
@@ -8,6 +8,7 @@ import java.util.Collections;
 import java.util.Comparator;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import javax.lang.model.element.AnnotationMirror;
 import javax.lang.model.element.TypeElement;
@@ -31,6 +32,7 @@ import org.checkerframework.framework.util.AnnotatedTypes;
 import org.checkerframework.framework.util.AtmCombo;
 import org.checkerframework.framework.util.PluginUtil;
 import org.checkerframework.framework.util.TypeArgumentMapper;
+import org.checkerframework.javacutil.CollectionUtils;
 import org.checkerframework.javacutil.ErrorReporter;
 import org.checkerframework.javacutil.InternalUtils;
 import org.checkerframework.javacutil.Pair;
@@ -122,6 +124,26 @@ public class DefaultTypeHierarchy extends AbstractAtmComboVisitor<Boolean, Visit
      */
     protected final boolean ignoreUninferredTypeArguments;
 
+    /** Size of {@link #subtypeCache}. */
+    private static final int SUBTYPE_CACHE_SIZE = 500;
+
+    /**
+     * Caches the results of {@link #isSubtype(AnnotatedTypeMirror, AnnotatedTypeMirror,
+     * AnnotationMirror)} for types that satisfy {@link #isCacheable(AnnotatedTypeMirror)}. The
+     * types are compared structurally, using {@link AnnotatedTypeMirror#equals(Object)}. Null if
+     * the -AatfDoNotCache command-line option is supplied.
+     */
+    private final Map<
+                    Pair<Pair<AnnotatedTypeMirror, AnnotatedTypeMirror>, AnnotationMirror>,
+                    Boolean>
+            subtypeCache;
+
+    /** The number of subtype checks that were answered by {@link #subtypeCache}. */
+    private int subtypeCacheHits = 0;
+
+    /** The number of cacheable subtype checks that were not answered by the cache. */
+    private int subtypeCacheMisses = 0;
+
     public DefaultTypeHierarchy(
             final BaseTypeChecker checker,
             final QualifierHierarchy qualifierHierarchy,
@@ -154,6 +176,12 @@ public class DefaultTypeHierarchy extends AbstractAtmComboVisitor<Boolean, Visit
         this.covariantTypeArgs = covariantTypeArgs;
 
         ignoreUninferredTypeArguments = !checker.hasOption("conservativeUninferredTypeArguments");
+
+        if (checker.hasOption("atfDoNotCache")) {
+            this.subtypeCache = null;
+        } else {
+            this.subtypeCache = CollectionUtils.createLRUCache(SUBTYPE_CACHE_SIZE);
+        }
     }
 
     /**
@@ -189,7 +217,70 @@ public class DefaultTypeHierarchy extends AbstractAtmComboVisitor<Boolean, Visit
             final AnnotatedTypeMirror supertype,
             final AnnotationMirror top) {
         currentTop = top;
-        return isSubtype(subtype, supertype, new VisitHistory());
+        if (subtypeCache == null || !isCacheable(subtype) || !isCacheable(supertype)) {
+            return isSubtype(subtype, supertype, new VisitHistory());
+        }
+
+        Pair<Pair<AnnotatedTypeMirror, AnnotatedTypeMirror>, AnnotationMirror> query =
+                Pair.of(Pair.of(subtype, supertype), top);
+        Boolean result = subtypeCache.get(query);
+        if (result != null) {
+            subtypeCacheHits++;
+            return result;
+        }
+        subtypeCacheMisses++;
+        result = isSubtype(subtype, supertype, new VisitHistory());
+        // The types are copied because the caller may modify them later.
+        subtypeCache.put(Pair.of(Pair.of(subtype.deepCopy(), supertype.deepCopy()), top), result);
+        return result;
+    }
+
+    /**
+     * Returns whether the result of a subtype check involving {@code type} may be cached. That is
+     * the case if the structural equality of {@link AnnotatedTypeMirror#equals(Object)} captures
+     * everything the subtype check depends on: the type contains no type variables, wildcards, or
+     * raw types.
+     *
+     * @param type a type
+     * @return whether subtype checks involving type may be cached
+     */
+    protected boolean isCacheable(final AnnotatedTypeMirror type) {
+        switch (type.getKind()) {
+            case DECLARED:
+                final AnnotatedDeclaredType declaredType = (AnnotatedDeclaredType) type;
+                if (declaredType.wasRaw()) {
+                    return false;
+                }
+                for (final AnnotatedTypeMirror typeArg : declaredType.getTypeArguments()) {
+                    if (!isCacheable(typeArg)) {
+                        return false;
+                    }
+                }
+                return true;
+
+            case ARRAY:
+                return isCacheable(((AnnotatedArrayType) type).getComponentType());
+
+            case NULL:
+                return true;
+
+            default:
+                return type.getKind().isPrimitive();
+        }
+    }
+
+    /**
+     * Returns a description of how effective the cache of subtype checks was.
+     *
+     * @return the number of cache hits and misses
+     */
+    public String getSubtypeCacheStatistics() {
+        int total = subtypeCacheHits + subtypeCacheMisses;
+        return String.format(
+                "Subtype cache: %d hits, %d misses (%.1f%% hit rate)",
+                subtypeCacheHits,
+                subtypeCacheMisses,
+                total == 0 ? 0.0 : 100.0 * subtypeCacheHits / total);
     }
 
     /**
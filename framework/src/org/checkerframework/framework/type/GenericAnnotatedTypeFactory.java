@@ -49,7 +49,6 @@ import org.checkerframework.dataflow.analysis.FlowExpressions.FieldAccess;
 import org.checkerframework.dataflow.analysis.FlowExpressions.LocalVariable;
 import org.checkerframework.dataflow.analysis.TransferInput;
 import org.checkerframework.dataflow.analysis.TransferResult;
-import org.checkerframework.dataflow.cfg.CFGBuilder;
 import org.checkerframework.dataflow.cfg.CFGVisualizer;
 import org.checkerframework.dataflow.cfg.ControlFlowGraph;
 import org.checkerframework.dataflow.cfg.DOTCFGVisualizer;
@@ -65,6 +64,7 @@ import org.checkerframework.framework.flow.CFAbstractTransfer;
 import org.checkerframework.framework.flow.CFAbstractValue;
 import org.checkerframework.framework.flow.CFAnalysis;
 import org.checkerframework.framework.flow.CFCFGBuilder;
+import org.checkerframework.framework.flow.CFGCache;
 import org.checkerframework.framework.flow.CFStore;
 import org.checkerframework.framework.flow.CFTransfer;
 import org.checkerframework.framework.flow.CFValue;
@@ -78,6 +78,7 @@ import org.checkerframework.framework.qual.MonotonicQualifier;
 import org.checkerframework.framework.qual.RelevantJavaTypes;
 import org.checkerframework.framework.qual.TypeUseLocation;
 import org.checkerframework.framework.qual.Unqualified;
+import org.checkerframework.framework.source.SourceChecker;
 import org.checkerframework.framework.type.AnnotatedTypeMirror.AnnotatedDeclaredType;
 import org.checkerframework.framework.type.AnnotatedTypeMirror.AnnotatedExecutableType;
 import org.checkerframework.framework.type.treeannotator.ImplicitsTreeAnnotator;
@@ -90,6 +91,7 @@ import org.checkerframework.framework.type.typeannotator.ListTypeAnnotator;
 import org.checkerframework.framework.type.typeannotator.PropagationTypeAnnotator;
 import org.checkerframework.framework.type.typeannotator.TypeAnnotator;
 import org.checkerframework.framework.util.AnnotatedTypes;
+import org.checkerframework.framework.util.ContractsUtils;
 import org.checkerframework.framework.util.FlowExpressionParseUtil;
 import org.checkerframework.framework.util.FlowExpressionParseUtil.FlowExpressionParseException;
 import org.checkerframework.framework.util.QualifierPolymorphism;
@@ -138,6 +140,9 @@ public abstract class GenericAnnotatedTypeFactory<
     /** to handle dependent type annotations */
     protected DependentTypesHelper dependentTypesHelper;
 
+    /** to handle pre- and postconditions; created lazily by {@link #getContractsUtils()} */
+    private ContractsUtils contractsUtils;
+
     // Flow related fields
 
     /**
@@ -439,6 +444,14 @@ public abstract class GenericAnnotatedTypeFactory<
         return dependentTypesHelper;
     }
 
+    /** @return the {@link ContractsUtils} that reads the contracts of methods for this factory */
+    public ContractsUtils getContractsUtils() {
+        if (contractsUtils == null) {
+            contractsUtils = new ContractsUtils(this);
+        }
+        return contractsUtils;
+    }
+
     @Override
     public AnnotatedDeclaredType fromNewClass(NewClassTree newClassTree) {
         AnnotatedDeclaredType superResult = super.fromNewClass(newClassTree);
@@ -1028,6 +1041,32 @@ public abstract class GenericAnnotatedTypeFactory<
     // Maintain for every class the store that is used when we analyze static initialization code
     protected Store initializationStaticStore;
 
+    /**
+     * Returns the control flow graph of {@code ast}. If the checker shares CFGs with other checkers
+     * (see {@link SourceChecker#getCFGCache()}), a CFG that another checker already built for ast
+     * is reused if this checker would have built the same CFG. A newly built CFG is made available
+     * to the other checkers unless it depends on this type factory.
+     *
+     * @param ast the AST for which to build a CFG
+     * @return the CFG of ast, together with the classes and lambdas declared in ast
+     */
+    protected CFGCache.Entry buildCFG(UnderlyingAST ast) {
+        CFCFGBuilder builder = new CFCFGBuilder(checker, this);
+        CFGCache cfgCache = checker.getCFGCache();
+        if (cfgCache != null) {
+            CFGCache.Entry cached = cfgCache.get(root, ast, builder, this);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        ControlFlowGraph cfg = builder.run(root, processingEnv, ast);
+        CFGCache.Entry entry = new CFGCache.Entry(cfg, builder);
+        if (cfgCache != null && !builder.isCheckerSpecific()) {
+            cfgCache.put(root, ast, entry);
+        }
+        return entry;
+    }
+
     /**
      * Analyze the AST {@code ast} and store the result.
      *
@@ -1068,8 +1107,8 @@ public abstract class GenericAnnotatedTypeFactory<
             boolean updateInitializationStore,
             boolean isStatic,
             Store lambdaStore) {
-        CFGBuilder builder = new CFCFGBuilder(checker, this);
-        ControlFlowGraph cfg = builder.run(root, processingEnv, ast);
+        CFGCache.Entry cfgEntry = buildCFG(ast);
+        ControlFlowGraph cfg = cfgEntry.getCFG();
         FlowAnalysis newAnalysis = createFlowAnalysis(fieldValues);
         TransferFunction transfer = newAnalysis.getTransferFunction();
         if (emptyStore == null) {
@@ -1135,8 +1174,8 @@ public abstract class GenericAnnotatedTypeFactory<
         analyses.removeFirst();
 
         // add classes declared in method
-        queue.addAll(builder.getDeclaredClasses());
-        for (LambdaExpressionTree lambda : builder.getDeclaredLambdas()) {
+        queue.addAll(cfgEntry.getDeclaredClasses());
+        for (LambdaExpressionTree lambda : cfgEntry.getDeclaredLambdas()) {
             lambdaQueue.add(Pair.of(lambda, getStoreBefore(lambda)));
         }
     }
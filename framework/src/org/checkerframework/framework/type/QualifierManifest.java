@@ -0,0 +1,160 @@
+package org.checkerframework.framework.type;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.annotation.Target;
+import java.net.URL;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import org.checkerframework.framework.util.AnnotatedTypes;
+
+/*>>>
+import org.checkerframework.checker.nullness.qual.Nullable;
+ */
+
+/**
+ * Reads and writes the qualifier manifest of a {@code qual} package: a resource that lists the
+ * annotation classes in the package and its subpackages whose {@link Target} meta-annotation makes
+ * them type qualifiers, one fully qualified class name per line.
+ *
+ * <p>The build writes a manifest into each {@code qual} directory of the compiled classes by running
+ * {@link #main}. {@link AnnotationClassLoader} reads the manifest of a checker's {@code qual}
+ * package instead of scanning the entries of the jar file or the files of the directory that
+ * contains the package, and instead of loading the classes in the package that are not qualifiers.
+ * If there is no manifest, for example for a checker that is not built by the Checker Framework
+ * build, {@code AnnotationClassLoader} scans the package.
+ */
+public class QualifierManifest {
+
+    /** The name of the manifest resource in a {@code qual} package. */
+    public static final String FILE_NAME = "qualifiers.txt";
+
+    /** The name of the directory of a {@code qual} package. */
+    private static final String QUAL_DIRECTORY_NAME = "qual";
+
+    private static final String CLASS_SUFFIX = ".class";
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private QualifierManifest() {
+        throw new AssertionError("Class QualifierManifest cannot be instantiated.");
+    }
+
+    /**
+     * Reads a manifest.
+     *
+     * @param manifest the URL of a manifest resource
+     * @return the fully qualified names of the qualifiers in the manifest, or null if it cannot be
+     *     read
+     */
+    static /*@Nullable*/ Set<String> read(URL manifest) {
+        Set<String> result = new LinkedHashSet<>();
+        try (BufferedReader reader =
+                new BufferedReader(new InputStreamReader(manifest.openStream(), UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (!line.isEmpty()) {
+                    result.add(line);
+                }
+            }
+        } catch (IOException e) {
+            return null;
+        }
+        return result;
+    }
+
+    /**
+     * Writes a manifest into each {@code qual} directory below the given class directories. The
+     * classes in the directories must be on the classpath.
+     *
+     * @param args the root directories of compiled classes
+     */
+    public static void main(String[] args) throws IOException {
+        for (String root : args) {
+            writeManifests(new File(root), "");
+        }
+    }
+
+    /** Writes a manifest into each {@code qual} directory in or below {@code dir}. */
+    private static void writeManifests(File dir, String packagePrefix) throws IOException {
+        for (File file : sortedContents(dir)) {
+            if (!file.isDirectory()) {
+                continue;
+            }
+            String packageName = packagePrefix + file.getName();
+            if (file.getName().equals(QUAL_DIRECTORY_NAME)) {
+                Set<String> qualifiers = new LinkedHashSet<>();
+                addQualifiers(file, packageName + '.', qualifiers);
+                try (Writer writer =
+                        new OutputStreamWriter(
+                                new FileOutputStream(new File(file, FILE_NAME)), UTF_8)) {
+                    for (String qualifier : qualifiers) {
+                        writer.write(qualifier);
+                        writer.write('\n');
+                    }
+                }
+            } else {
+                writeManifests(file, packageName + '.');
+            }
+        }
+    }
+
+    /**
+     * Adds the names of the qualifiers in {@code dir} and its subdirectories to {@code qualifiers},
+     * in the order in which {@link AnnotationClassLoader} finds them in a directory.
+     */
+    private static void addQualifiers(File dir, String packagePrefix, Set<String> qualifiers) {
+        for (File file : sortedContents(dir)) {
+            String fileName = file.getName();
+            if (file.isDirectory()) {
+                addQualifiers(file, packagePrefix + fileName + '.', qualifiers);
+            } else if (fileName.endsWith(CLASS_SUFFIX)) {
+                String className =
+                        packagePrefix
+                                + fileName.substring(0, fileName.length() - CLASS_SUFFIX.length());
+                if (isQualifier(className)) {
+                    qualifiers.add(className);
+                }
+            }
+        }
+    }
+
+    /** Returns true if the class {@code className} is an annotation that is a type qualifier. */
+    private static boolean isQualifier(String className) {
+        Class<?> cls;
+        try {
+            cls = Class.forName(className, false, QualifierManifest.class.getClassLoader());
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+        return cls.isAnnotation()
+                && cls.getAnnotation(Target.class) != null
+                && AnnotatedTypes.hasTypeQualifierElementTypes(
+                        cls.getAnnotation(Target.class).value(), cls);
+    }
+
+    private static File[] sortedContents(File dir) {
+        File[] contents = dir.listFiles();
+        if (contents == null) {
+            return new File[0];
+        }
+        Arrays.sort(
+                contents,
+                new Comparator<File>() {
+                    @Override
+                    public int compare(File o1, File o2) {
+                        return o1.getName().compareTo(o2.getName());
+                    }
+                });
+        return contents;
+    }
+}
@@ -4,12 +4,19 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Set;
+import javax.lang.model.type.TypeKind;
 import org.checkerframework.framework.type.AnnotatedTypeMirror;
+import org.checkerframework.framework.type.AnnotatedTypeMirror.AnnotatedArrayType;
+import org.checkerframework.framework.type.AnnotatedTypeMirror.AnnotatedDeclaredType;
 
 /**
  * ListTypeAnnotator is a TypeAnnotator that executes a list of {@link TypeAnnotator} for each type
  * visited.
  *
+ * <p>An annotator is skipped for a type that cannot contain any of the kinds of types it annotates;
+ * see {@link TypeAnnotator#getAnnotatedTypeKinds()}.
+ *
  * <p>Checkers should not extend ListTypeAnnotator; they should instead pass a custom TypeAnnotator
  * to the constructor.
  *
@@ -48,9 +55,46 @@ public final class ListTypeAnnotator extends TypeAnnotator {
     @Override
     protected Void scan(AnnotatedTypeMirror type, Void aVoid) {
         for (TypeAnnotator annotator : annotators) {
-            annotator.visit(type, aVoid);
+            Set<TypeKind> kinds = annotator.getAnnotatedTypeKinds();
+            if (kinds == null || type == null || mayContain(type, kinds)) {
+                annotator.visit(type, aVoid);
+            }
         }
 
         return null;
     }
+
+    /**
+     * Returns false if neither type nor any type it is composed of can be of one of the given
+     * kinds. Only the kinds of types that have few or no component types are examined; for all
+     * other types, this method returns true.
+     *
+     * @param type the type to annotate
+     * @param kinds the kinds of types an annotator annotates
+     * @return false if type does not contain a type of one of kinds
+     */
+    private static boolean mayContain(AnnotatedTypeMirror type, Set<TypeKind> kinds) {
+        if (kinds.contains(type.getKind())) {
+            return true;
+        }
+        if (type.getKind().isPrimitive()) {
+            return false;
+        }
+        switch (type.getKind()) {
+            case NULL:
+            case VOID:
+            case NONE:
+            case PACKAGE:
+                return false;
+            case DECLARED:
+                AnnotatedDeclaredType declaredType = (AnnotatedDeclaredType) type;
+                // Type arguments of raw types are created as wildcards.
+                return declaredType.wasRaw()
+                        || !declaredType.getUnderlyingType().getTypeArguments().isEmpty();
+            case ARRAY:
+                return mayContain(((AnnotatedArrayType) type).getComponentType(), kinds);
+            default:
+                return true;
+        }
+    }
 }
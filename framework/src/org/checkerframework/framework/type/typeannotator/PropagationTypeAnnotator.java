@@ -1,6 +1,7 @@
 package org.checkerframework.framework.type.typeannotator;
 
 import com.sun.tools.javac.code.Type.WildcardType;
+import java.util.EnumSet;
 import java.util.Set;
 import java.util.Stack;
 import javax.lang.model.element.AnnotationMirror;
@@ -38,6 +39,12 @@ public class PropagationTypeAnnotator extends TypeAnnotator {
         super(typeFactory);
     }
 
+    /** Only the bounds of wildcards are annotated. */
+    @Override
+    public Set<TypeKind> getAnnotatedTypeKinds() {
+        return EnumSet.of(TypeKind.WILDCARD);
+    }
+
     @Override
     public void reset() {
         if (!pause) {
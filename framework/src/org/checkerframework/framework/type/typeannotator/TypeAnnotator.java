@@ -1,5 +1,7 @@
 package org.checkerframework.framework.type.typeannotator;
 
+import java.util.Set;
+import javax.lang.model.type.TypeKind;
 import org.checkerframework.framework.type.AnnotatedTypeFactory;
 import org.checkerframework.framework.type.AnnotatedTypeMirror.AnnotatedExecutableType;
 import org.checkerframework.framework.type.visitor.AnnotatedTypeScanner;
@@ -20,6 +22,18 @@ public abstract class TypeAnnotator extends AnnotatedTypeScanner<Void, Void> {
         this.typeFactory = typeFactory;
     }
 
+    /**
+     * Returns the kinds of types to which this annotator may add annotations, or null if it may
+     * annotate types of any kind. {@link ListTypeAnnotator} does not run this annotator on a type
+     * that cannot contain a type of one of these kinds. Subclasses that annotate more kinds of
+     * types than their superclass must override this method.
+     *
+     * @return the kinds of types this annotator may annotate, or null for all kinds
+     */
+    public Set<TypeKind> getAnnotatedTypeKinds() {
+        return null;
+    }
+
     @Override
     public Void visitExecutable(AnnotatedExecutableType t, Void p) {
         // skip the receiver
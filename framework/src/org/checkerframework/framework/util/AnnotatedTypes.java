@@ -252,6 +252,20 @@ public class AnnotatedTypes {
             final AnnotatedTypeFactory atypeFactory,
             final AnnotatedTypeMirror of,
             final Element member) {
+        switch (of.getKind()) {
+            case INTERSECTION:
+            case UNION:
+            case DECLARED:
+                if (!ElementUtils.isStatic(member)) {
+                    AnnotatedTypeMirror cached = atypeFactory.getCachedAsMemberOf(of, member);
+                    if (cached != null) {
+                        return cached;
+                    }
+                }
+                break;
+            default:
+        }
+
         final AnnotatedTypeMirror memberType = atypeFactory.getAnnotatedType(member);
 
         if (ElementUtils.isStatic(member)) {
@@ -277,7 +291,10 @@ public class AnnotatedTypes {
             case INTERSECTION:
             case UNION:
             case DECLARED:
-                return substituteTypeVariables(types, atypeFactory, of, member, memberType);
+                AnnotatedTypeMirror result =
+                        substituteTypeVariables(types, atypeFactory, of, member, memberType);
+                atypeFactory.cacheAsMemberOf(of, member, result);
+                return result;
             default:
                 ErrorReporter.errorAbort("asMemberOf called on unexpected type.\nt: " + of);
                 return memberType; // dead code
@@ -854,6 +871,15 @@ public class AnnotatedTypes {
 
     private static Map<TypeElement, Boolean> isTypeAnnotationCache = new IdentityHashMap<>();
 
+    /**
+     * Clears the static caches of this class, which refer to elements and type factories of a
+     * compilation.
+     */
+    public static void clearCaches() {
+        isTypeAnnotationCache.clear();
+        asSuperVisitor = null;
+    }
+
     public static boolean isTypeAnnotation(AnnotationMirror anno, Class<?> cls) {
         TypeElement elem = (TypeElement) anno.getAnnotationType().asElement();
         if (isTypeAnnotationCache.containsKey(elem)) {
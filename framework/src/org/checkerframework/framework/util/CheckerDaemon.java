@@ -0,0 +1,449 @@
+package org.checkerframework.framework.util;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.List;
+import org.checkerframework.framework.util.defaults.QualifierDefaults;
+import org.checkerframework.javacutil.AnnotationUtils;
+import org.checkerframework.javacutil.ErrorReporter;
+
+/**
+ * A long-lived process that runs compilations for {@link CheckerMain}. Every compilation that
+ * {@code CheckerMain} runs otherwise starts a new JVM, which then loads and JIT-compiles the
+ * compiler, the Checker Framework, and the checkers again. The daemon keeps one JVM running and
+ * runs each compilation in it, one at a time.
+ *
+ * <p>The daemon is used if {@code CheckerMain} is passed {@code -checkerDaemon portFile}. The daemon
+ * listens on a port of the loopback interface. It writes the port and a random secret into {@code
+ * portFile}, which only the owner of the daemon can read, and it only runs compilations for
+ * clients that send the secret. If there is no daemon for {@code portFile}, {@code CheckerMain}
+ * starts one, with the same JVM options as it would use for the compilation; the output of the
+ * daemon itself goes to {@code portFile.log}. The daemon stops after it has been idle for {@link
+ * #IDLE_TIMEOUT} milliseconds, and it is replaced by a new daemon when the JVM options or the jars
+ * on its bootclasspath change.
+ *
+ * <p>The daemon saves starting a JVM and warming it up, and nothing else. It puts {@code
+ * checker.jar} on its bootclasspath, next to {@code javac.jar}. Because the class loader that javac
+ * creates for the processor path delegates to the bootclasspath first, the classes of the
+ * framework and of the checkers in {@code checker.jar} are loaded and JIT-compiled once for all
+ * compilations. Each compilation still creates its checkers anew: they parse their stub files and
+ * load their qualifiers again, and no result of a checker is reused. After each compilation, the
+ * daemon clears the static caches of the framework, so that it does not retain the compiler's data
+ * structures. Checkers in other jars are loaded again for each compilation.
+ *
+ * <p>Relative paths in the arguments are resolved against the working directory of the daemon, so
+ * the daemon only runs compilations from the directory in which it was started. Otherwise, and if
+ * the daemon cannot be reached, {@code CheckerMain} runs the compilation in a new JVM as usual. The
+ * diagnostics of a compilation are returned to {@code CheckerMain}, but output that a checker
+ * prints directly to the standard output goes to the log of the daemon.
+ */
+public class CheckerDaemon {
+
+    /** How long the daemon runs without receiving a compilation, in milliseconds. */
+    public static final int IDLE_TIMEOUT = 3 * 60 * 60 * 1000;
+
+    /** How long {@code CheckerMain} waits for a new daemon to start, in milliseconds. */
+    private static final int STARTUP_TIMEOUT = 60 * 1000;
+
+    /** The exit status that tells {@code CheckerMain} that the daemon did not run a compilation. */
+    private static final int DECLINED = Integer.MIN_VALUE;
+
+    /**
+     * The exit status that tells {@code CheckerMain} that the daemon did not run a compilation
+     * because it was started with another configuration, and that it stopped.
+     */
+    private static final int STOPPED = Integer.MIN_VALUE + 1;
+
+    /** The exit status of a compilation that failed with an exception, as used by javac. */
+    private static final int EXIT_ABNORMAL = 4;
+
+    /** The number of random bytes in the secret of a daemon. */
+    private static final int SECRET_BYTES = 32;
+
+    /** How long the daemon waits for a client to send its request, in milliseconds. */
+    private static final int REQUEST_TIMEOUT = 60 * 1000;
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private CheckerDaemon() {
+        throw new AssertionError("Class CheckerDaemon cannot be instantiated.");
+    }
+
+    /**
+     * Runs the daemon until it has been idle for {@link #IDLE_TIMEOUT} milliseconds.
+     *
+     * @param args the path of the port file, and the configuration of the daemon as computed by
+     *     {@link #configuration}
+     */
+    public static void main(String[] args) throws IOException {
+        File portFile = new File(args[0]);
+        String configuration = args[1];
+        String workingDir = new File(System.getProperty("user.dir")).getCanonicalPath();
+        byte[] randomBytes = new byte[SECRET_BYTES];
+        new SecureRandom().nextBytes(randomBytes);
+        String secret = toHex(randomBytes);
+        ServerSocket server = new ServerSocket(0, 50, InetAddress.getByName(null));
+        server.setSoTimeout(IDLE_TIMEOUT);
+        String port = Integer.toString(server.getLocalPort());
+
+        // Write the port file atomically, so that clients never read a partial secret. Only the
+        // owner may read it, because the secret permits running compilations as the owner.
+        File tempFile = new File(portFile.getPath() + ".tmp");
+        tempFile.delete();
+        createPrivateFile(tempFile);
+        try (FileWriter writer = new FileWriter(tempFile)) {
+            writer.write(port + " " + secret);
+        }
+        if (!tempFile.renameTo(portFile)) {
+            portFile.delete();
+            if (!tempFile.renameTo(portFile)) {
+                throw new IOException("Could not write the port file " + portFile);
+            }
+        }
+
+        try {
+            while (true) {
+                try (Socket socket = server.accept()) {
+                    if (!serve(socket, secret, workingDir, configuration)) {
+                        break;
+                    }
+                } catch (SocketTimeoutException e) {
+                    break;
+                } catch (IOException e) {
+                    // The client went away; wait for the next one.
+                }
+            }
+        } finally {
+            server.close();
+            String[] contents = readPortFile(portFile);
+            if (contents != null && contents[0].equals(port)) {
+                portFile.delete();
+            }
+        }
+    }
+
+    /**
+     * Runs the compilation that a client requests on {@code socket}, if the client sends the secret
+     * of the daemon.
+     *
+     * @return false if the daemon should stop, because the client needs a daemon with another
+     *     configuration
+     */
+    private static boolean serve(
+            Socket socket, String secret, String workingDir, String configuration)
+            throws IOException {
+        socket.setSoTimeout(REQUEST_TIMEOUT);
+        DataInputStream in = new DataInputStream(socket.getInputStream());
+        DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+
+        // The secret has a fixed length, so that nothing else is read from unknown clients.
+        byte[] expected = secret.getBytes(UTF_8);
+        byte[] received = new byte[expected.length];
+        in.readFully(received);
+        if (!MessageDigest.isEqual(expected, received)) {
+            return true;
+        }
+
+        String clientDir = readString(in);
+        String clientConfiguration = readString(in);
+        String[] args = new String[in.readInt()];
+        for (int i = 0; i < args.length; i++) {
+            args[i] = readString(in);
+        }
+
+        if (!clientConfiguration.equals(configuration)) {
+            writeString(out, "");
+            out.writeInt(STOPPED);
+            out.flush();
+            return false;
+        }
+        if (!clientDir.equals(workingDir)) {
+            writeString(out, "");
+            out.writeInt(DECLINED);
+            out.flush();
+            return true;
+        }
+
+        socket.setSoTimeout(0);
+        StringWriter output = new StringWriter();
+        PrintWriter writer = new PrintWriter(output);
+        int exitStatus;
+        try {
+            exitStatus = com.sun.tools.javac.Main.compile(args, writer);
+        } catch (Throwable t) {
+            t.printStackTrace(writer);
+            exitStatus = EXIT_ABNORMAL;
+        } finally {
+            clearStaticState();
+        }
+        writer.flush();
+        writeString(out, output.toString());
+        out.writeInt(exitStatus);
+        out.flush();
+        return true;
+    }
+
+    /**
+     * Clears the static state that the framework keeps across compilations, which refers to the
+     * data structures of the compiler. Without this, the daemon would retain every compilation.
+     */
+    private static void clearStaticState() {
+        AnnotationUtils.clear();
+        AnnotatedTypes.clearCaches();
+        QualifierDefaults.clearCaches();
+        ErrorReporter.setHandler(null);
+    }
+
+    /**
+     * Runs a compilation in the daemon whose port is in {@code portFile}, and starts the daemon if
+     * it is not running or if it was started with another configuration.
+     *
+     * @param portFile the port file of the daemon
+     * @param jvmCommand the command that starts a JVM for the daemon, without the main class
+     * @param jars the jars on the bootclasspath of the daemon
+     * @param compilerArgs the arguments to javac
+     * @param err the stream to which the diagnostics of the compilation are written
+     * @return the exit status of the compilation, or null if the daemon did not run it
+     */
+    public static Integer compile(
+            File portFile,
+            List<String> jvmCommand,
+            List<File> jars,
+            List<String> compilerArgs,
+            OutputStream err) {
+        String configuration = configuration(jvmCommand, jars);
+        List<String> daemonCommand = new ArrayList<>(jvmCommand);
+        daemonCommand.add(CheckerDaemon.class.getName());
+        daemonCommand.add(portFile.getAbsolutePath());
+        daemonCommand.add(configuration);
+
+        try {
+            Socket socket = connect(portFile);
+            // At most one daemon is replaced, so that two clients that need different
+            // configurations do not replace each other's daemon forever.
+            for (int attempt = 0; attempt < 2; attempt++) {
+                if (socket == null) {
+                    socket = startAndConnect(portFile, daemonCommand);
+                    if (socket == null) {
+                        return null;
+                    }
+                }
+                try {
+                    DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+                    writeString(out, new File(System.getProperty("user.dir")).getCanonicalPath());
+                    writeString(out, configuration);
+                    out.writeInt(compilerArgs.size());
+                    for (String arg : compilerArgs) {
+                        writeString(out, arg);
+                    }
+                    out.flush();
+
+                    DataInputStream in = new DataInputStream(socket.getInputStream());
+                    String output = readString(in);
+                    int exitStatus = in.readInt();
+                    if (exitStatus == DECLINED) {
+                        return null;
+                    } else if (exitStatus != STOPPED) {
+                        err.write(output.getBytes(Charset.defaultCharset()));
+                        err.flush();
+                        return exitStatus;
+                    }
+                } finally {
+                    socket.close();
+                }
+                socket = null;
+            }
+            return null;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Returns the configuration of a daemon: its JVM command and the modification times of the
+     * jars on its bootclasspath, so that a daemon is not used after a jar has been rebuilt.
+     */
+    private static String configuration(List<String> jvmCommand, List<File> jars) {
+        StringBuilder result = new StringBuilder();
+        for (String arg : jvmCommand) {
+            result.append(arg).append(' ');
+        }
+        for (File jar : jars) {
+            result.append(jar.getAbsolutePath()).append('@').append(jar.lastModified()).append(' ');
+        }
+        return result.toString().trim();
+    }
+
+    /**
+     * Stops the daemon whose port is in {@code portFile}, if it is running. A daemon that is
+     * running a compilation stops when the compilation is finished.
+     *
+     * @param portFile the port file of the daemon
+     */
+    public static void stop(File portFile) {
+        Socket socket = connect(portFile);
+        if (socket == null) {
+            return;
+        }
+        try {
+            // A request with a configuration that no daemon has makes the daemon stop.
+            DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+            writeString(out, new File(System.getProperty("user.dir")).getCanonicalPath());
+            writeString(out, "");
+            out.writeInt(0);
+            out.flush();
+            DataInputStream in = new DataInputStream(socket.getInputStream());
+            readString(in);
+            in.readInt();
+        } catch (IOException e) {
+            // The daemon is gone already.
+        } finally {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                // Nothing to do.
+            }
+        }
+    }
+
+    /**
+     * Connects to the daemon whose port is in {@code portFile} and sends it the secret in the port
+     * file, or returns null if there is no daemon.
+     */
+    private static Socket connect(File portFile) {
+        String[] contents = readPortFile(portFile);
+        if (contents == null) {
+            return null;
+        }
+        Socket socket = null;
+        try {
+            socket = new Socket(InetAddress.getByName(null), Integer.parseInt(contents[0]));
+            OutputStream out = socket.getOutputStream();
+            out.write(contents[1].getBytes(UTF_8));
+            return socket;
+        } catch (IOException | NumberFormatException e) {
+            if (socket != null) {
+                try {
+                    socket.close();
+                } catch (IOException e2) {
+                    // Nothing to do.
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Starts a daemon and connects to it.
+     *
+     * @return a connection to the new daemon, or null if it did not start in time
+     */
+    private static Socket startAndConnect(File portFile, List<String> daemonCommand)
+            throws IOException {
+        // The port file of a daemon that did not stop normally is stale.
+        portFile.delete();
+        File logFile = new File(portFile.getPath() + ".log");
+        new ProcessBuilder(daemonCommand)
+                .redirectErrorStream(true)
+                .redirectOutput(ProcessBuilder.Redirect.appendTo(logFile))
+                .start();
+
+        long deadline = System.currentTimeMillis() + STARTUP_TIMEOUT;
+        while (System.currentTimeMillis() < deadline) {
+            Socket socket = connect(portFile);
+            if (socket != null) {
+                return socket;
+            }
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                return null;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the port and the secret in the port file, or null if it cannot be read.
+     *
+     * @param portFile the port file of a daemon
+     * @return an array of the port and the secret, or null
+     */
+    private static String[] readPortFile(File portFile) {
+        if (!portFile.isFile()) {
+            return null;
+        }
+        try {
+            String contents = new String(Files.readAllBytes(portFile.toPath()), UTF_8).trim();
+            String[] result = contents.split(" ");
+            return result.length == 2 ? result : null;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Creates an empty file that only its owner can read and write.
+     *
+     * @param file the file, which must not exist
+     */
+    private static void createPrivateFile(File file) throws IOException {
+        Path path = file.toPath();
+        if (path.getFileSystem().supportedFileAttributeViews().contains("posix")) {
+            Files.createFile(
+                    path,
+                    PosixFilePermissions.asFileAttribute(
+                            PosixFilePermissions.fromString("rw-------")));
+        } else {
+            Files.createFile(path);
+            if (!(file.setReadable(false, false)
+                    && file.setReadable(true, true)
+                    && file.setWritable(false, false)
+                    && file.setWritable(true, true))) {
+                file.delete();
+                throw new IOException("Could not restrict the access to " + file);
+            }
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder result = new StringBuilder(2 * bytes.length);
+        for (byte b : bytes) {
+            result.append(Character.forDigit((b >> 4) & 0xF, 16));
+            result.append(Character.forDigit(b & 0xF, 16));
+        }
+        return result.toString();
+    }
+
+    // Strings are written with their length, because a class path may be longer than writeUTF
+    // permits.
+
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        byte[] bytes = s.getBytes(UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, UTF_8);
+    }
+}
@@ -11,6 +11,7 @@ import java.net.URLDecoder;
 import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
 import java.util.jar.JarInputStream;
 import java.util.regex.Matcher;
@@ -30,7 +31,10 @@ import java.util.zip.ZipEntry;
  *   <li>pass all remaining command-line arguments to the real javac
  * </ul>
  *
- * To debug this class, use the {@code -AoutputArgsToFile=FILENAME} command-line argument or {@code
+ * If {@code -checkerDaemon portFile} is passed, the compilation is run in a long-lived {@link
+ * CheckerDaemon} instead of a new JVM.
+ *
+ * <p>To debug this class, use the {@code -AoutputArgsToFile=FILENAME} command-line argument or {@code
  * -AoutputArgsToFile=-} to output to standard out.
  *
  * <p>"To run the Checker Framework" really means to run java, where the program being run is a
@@ -58,6 +62,12 @@ public class CheckerMain {
         System.exit(exitStatus);
     }
 
+    /**
+     * The option that names the port file of a {@link CheckerDaemon} that should run the
+     * compilation.
+     */
+    public static final String DAEMON_OPT = "-checkerDaemon";
+
     /** The path to the annotated jdk jar to use */
     protected final File jdkJar;
 
@@ -84,6 +94,9 @@ public class CheckerMain {
 
     private final List<File> argListFiles;
 
+    /** The port file of the daemon that runs the compilation, or null to run it in a new JVM. */
+    private final File daemonPortFile;
+
     /**
      * Construct all the relevant file locations and Java version given the path to this jar and a
      * set of directories in which to search for jars.
@@ -103,6 +116,7 @@ public class CheckerMain {
         final String jdkJarName = PluginUtil.getJdkJarName();
         this.jdkJar =
                 extractFileArg(PluginUtil.JDK_PATH_OPT, new File(searchPath, jdkJarName), args);
+        this.daemonPortFile = extractFileArg(DAEMON_OPT, null, args);
 
         this.compilationBootclasspath = createCompilationBootclasspath(args);
         this.runtimeBootClasspath = createRuntimeBootclasspath(args);
@@ -369,21 +383,40 @@ public class CheckerMain {
     public List<String> getExecArguments() {
         List<String> args =
                 new ArrayList<String>(jvmOpts.size() + cpOpts.size() + toolOpts.size() + 7);
+        addJvmArgs(runtimeBootClasspath, args);
+        addMainToArgs(args);
+        addCompilerArgs(true, args);
+        return args;
+    }
 
+    /**
+     * Adds the command that starts the JVM that runs the compiler to {@code args}.
+     *
+     * @param bootClasspath the entries to prepend to the bootclasspath of the JVM
+     * @param args the list to add to
+     */
+    private void addJvmArgs(List<String> bootClasspath, List<String> args) {
         final String java = PluginUtil.getJavaCommand(System.getProperty("java.home"), System.out);
         args.add(java);
 
         // Prepend ("/p:") because our javac.jar doesn't have all classes
         // required by the Java runtime to execute the compiler.
-        args.add("-Xbootclasspath/p:" + PluginUtil.join(File.pathSeparator, runtimeBootClasspath));
+        args.add("-Xbootclasspath/p:" + PluginUtil.join(File.pathSeparator, bootClasspath));
         args.add("-ea");
         // com.sun.tools needs to be enabled separately
         args.add("-ea:com.sun.tools...");
 
         args.addAll(jvmOpts);
+    }
 
-        addMainToArgs(args);
-
+    /**
+     * Adds the arguments of the compiler to {@code args}.
+     *
+     * @param quotePaths whether to quote the classpath and processorpath if they contain spaces, as
+     *     needed when they are passed on a command line
+     * @param args the list to add to
+     */
+    private void addCompilerArgs(boolean quotePaths, List<String> args) {
         // No classes on the compilation bootclasspath will be loaded
         // during compilation, but the classes are read by the compiler
         // without loading them.  The compiler assumes that any class on
@@ -397,16 +430,17 @@ public class CheckerMain {
                         + PluginUtil.join(File.pathSeparator, compilationBootclasspath));
 
         if (!argsListHasClassPath(argListFiles)) {
+            String classpath = PluginUtil.join(File.pathSeparator, cpOpts);
             args.add("-classpath");
-            args.add(quote(PluginUtil.join(File.pathSeparator, cpOpts)));
+            args.add(quotePaths ? quote(classpath) : classpath);
         }
         if (!argsListHasProcessorPath(argListFiles)) {
+            String processorpath = PluginUtil.join(File.pathSeparator, ppOpts);
             args.add("-processorpath");
-            args.add(quote(PluginUtil.join(File.pathSeparator, ppOpts)));
+            args.add(quotePaths ? quote(processorpath) : processorpath);
         }
 
         args.addAll(toolOpts);
-        return args;
     }
 
     /**
@@ -427,10 +461,44 @@ public class CheckerMain {
             }
         }
 
+        if (daemonPortFile != null && checkerJar.isFile()) {
+            Integer exitStatus = invokeDaemon();
+            if (exitStatus != null) {
+                return exitStatus;
+            }
+        }
+
         // Actually invoke the compiler
         return ExecUtil.execute(args.toArray(new String[args.size()]), System.out, System.err);
     }
 
+    /**
+     * Runs the compilation in the daemon named by {@link #DAEMON_OPT}. The daemon has {@code
+     * checker.jar} on its bootclasspath, so that the classes in it are loaded only once for all
+     * compilations that the daemon runs.
+     *
+     * @return the exit status of the compilation, or null if the daemon could not run it
+     */
+    private Integer invokeDaemon() {
+        List<String> bootClasspath = new ArrayList<>(runtimeBootClasspath);
+        bootClasspath.add(checkerJar.getAbsolutePath());
+        List<File> jars = new ArrayList<>(bootClasspath.size());
+        for (String entry : bootClasspath) {
+            jars.add(new File(entry));
+        }
+
+        List<String> jvmCommand = new ArrayList<>();
+        addJvmArgs(bootClasspath, jvmCommand);
+        List<String> compilerArgs = new ArrayList<>();
+        addCompilerArgs(false, compilerArgs);
+        for (Iterator<String> iter = compilerArgs.iterator(); iter.hasNext(); ) {
+            if (iter.next().startsWith("-AoutputArgsToFile=")) {
+                iter.remove();
+            }
+        }
+        return CheckerDaemon.compile(daemonPortFile, jvmCommand, jars, compilerArgs, System.err);
+    }
+
     private static void outputArgumentsToFile(String outputFilename, List<String> args) {
         if (outputFilename != null) {
             String errorMessage = null;
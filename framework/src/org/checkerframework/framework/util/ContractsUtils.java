@@ -34,15 +34,23 @@ import org.checkerframework.javacutil.Pair;
  */
 public class ContractsUtils {
 
-    protected static ContractsUtils instance;
-    protected GenericAnnotatedTypeFactory<?, ?, ?, ?> factory;
+    /**
+     * No longer set.
+     *
+     * @deprecated each factory has its own instance; use {@link
+     *     GenericAnnotatedTypeFactory#getContractsUtils()}
+     */
+    @Deprecated protected static ContractsUtils instance;
 
-    /** Returns an instance of the {@link ContractsUtils} class. */
+    protected final GenericAnnotatedTypeFactory<?, ?, ?, ?> factory;
+
+    /**
+     * Returns the instance of the {@link ContractsUtils} class for {@code factory}.
+     *
+     * @see GenericAnnotatedTypeFactory#getContractsUtils()
+     */
     public static ContractsUtils getInstance(GenericAnnotatedTypeFactory<?, ?, ?, ?> factory) {
-        if (instance == null || instance.factory != factory) {
-            instance = new ContractsUtils(factory);
-        }
-        return instance;
+        return factory.getContractsUtils();
     }
 
     /**
@@ -383,8 +391,11 @@ public class ContractsUtils {
         return result;
     }
 
-    // private constructor
-    private ContractsUtils(GenericAnnotatedTypeFactory<?, ?, ?, ?> factory) {
+    /**
+     * Creates a ContractsUtils for {@code factory}. Clients should use {@link
+     * GenericAnnotatedTypeFactory#getContractsUtils()}, which creates one instance per factory.
+     */
+    public ContractsUtils(GenericAnnotatedTypeFactory<?, ?, ?, ?> factory) {
         this.factory = factory;
     }
 }
@@ -31,7 +31,6 @@ import javax.lang.model.element.VariableElement;
 import javax.lang.model.type.DeclaredType;
 import javax.lang.model.type.TypeKind;
 import javax.lang.model.type.TypeMirror;
-import javax.lang.model.util.Elements;
 import javax.lang.model.util.Types;
 import org.checkerframework.dataflow.analysis.FlowExpressions;
 import org.checkerframework.dataflow.analysis.FlowExpressions.ArrayAccess;
@@ -49,6 +48,15 @@ import org.checkerframework.dataflow.cfg.node.MethodInvocationNode;
 import org.checkerframework.dataflow.cfg.node.Node;
 import org.checkerframework.dataflow.cfg.node.ObjectCreationNode;
 import org.checkerframework.framework.source.Result;
+import org.checkerframework.framework.util.FlowExpressionSyntax.Identifier;
+import org.checkerframework.framework.util.FlowExpressionSyntax.IntLiteral;
+import org.checkerframework.framework.util.FlowExpressionSyntax.LongLiteral;
+import org.checkerframework.framework.util.FlowExpressionSyntax.MemberSelect;
+import org.checkerframework.framework.util.FlowExpressionSyntax.NullLiteral;
+import org.checkerframework.framework.util.FlowExpressionSyntax.Parameter;
+import org.checkerframework.framework.util.FlowExpressionSyntax.StringLiteral;
+import org.checkerframework.framework.util.FlowExpressionSyntax.Super;
+import org.checkerframework.framework.util.FlowExpressionSyntax.This;
 import org.checkerframework.javacutil.ElementUtils;
 import org.checkerframework.javacutil.InternalUtils;
 import org.checkerframework.javacutil.Pair;
@@ -81,35 +89,8 @@ public class FlowExpressionParseUtil {
         return Pattern.compile("^" + regex + "$");
     }
 
-    // Each of the below patterns is anchored with ^...$.
-    /** Matches a parameter */
-    protected static final Pattern parameterPattern = anchored(parameterRegex);
-    /**
-     * Matches 'this', the self reference. Does not allow "#0" because people reading the code might
-     * assume the numbering starts at 0 and assume that #0 is the first formal parameter.
-     */
-    protected static final Pattern thisPattern = anchored("this");
-    /** Matches 'super' */
-    protected static final Pattern superPattern = anchored("super");
-    /** Matches an identifier */
-    protected static final Pattern identifierPattern = anchored(identifierRegex);
-    /** Matches a method call. Capturing groups 1 and 2 are the method and arguments. */
-    protected static final Pattern methodPattern = anchored("(" + identifierRegex + ")\\((.*)\\)");
-    /** Matches an array access. Capturing groups 1 and 2 are the array and index. */
-    protected static final Pattern arrayPattern = anchored("(.*)\\[(.*)\\]");
     /** Matches a field access. Capturing groups 1 and 2 are the object and field. */
     protected static final Pattern memberselect = anchored("([^.]+)\\.(.+)");
-    /** Matches integer literals */
-    protected static final Pattern intPattern = anchored("[-+]?[0-9]+");
-    /** Matches long literals */
-    protected static final Pattern longPattern = anchored("[-+]?[0-9]+[Ll]");
-    /** Matches string literals */
-    // Regex can be found at, for example, http://stackoverflow.com/a/481587/173852
-    protected static final Pattern stringPattern = anchored("\"(?:[^\"\\\\]|\\\\.)*\"");
-    /** Matches the null literal */
-    protected static final Pattern nullPattern = anchored("null");
-    /** Matches an expression contained in matching start and end parentheses */
-    protected static final Pattern parenthesesPattern = anchored("\\((.*)\\)");
 
     /**
      * Parse a string and return its representation as a {@link Receiver}, or throw an {@link
@@ -138,74 +119,110 @@ public class FlowExpressionParseUtil {
     private static FlowExpressions.Receiver parseHelper(
             String expression, FlowExpressionContext context, TreePath path)
             throws FlowExpressionParseException {
-        expression = expression.trim();
+        return resolve(FlowExpressionSyntax.parse(expression.trim()), context, path);
+    }
 
+    /**
+     * Returns the {@link Receiver} that the syntax tree {@code node} denotes in {@code context}.
+     *
+     * @param node the syntax tree of a flow expression
+     * @param context information about any receiver and arguments
+     * @param path path to local scope to use
+     */
+    private static Receiver resolve(
+            FlowExpressionSyntax.Node node, FlowExpressionContext context, TreePath path)
+            throws FlowExpressionParseException {
         ProcessingEnvironment env = context.checkerContext.getProcessingEnvironment();
         Types types = env.getTypeUtils();
 
-        if (isNullLiteral(expression, context)) {
-            return parseNullLiteral(expression, types);
-        } else if (isIntLiteral(expression, context)) {
-            return parseIntLiteral(expression, types);
-        } else if (isLongLiteral(expression, context)) {
-            return parseLongLiteral(expression, types);
-        } else if (isStringLiteral(expression, context)) {
-            return parseStringLiteral(expression, types, env.getElementUtils());
-        } else if (isThisLiteral(expression, context)) {
-            return parseThis(expression, context);
-        } else if (isSuperLiteral(expression, context)) {
-            return parseSuper(expression, types, context);
-        } else if (isIdentifier(expression, context)) {
-            return parseIdentifier(expression, env, path, context);
-        } else if (isParameter(expression, context)) {
-            return parseParameter(expression, context);
-        } else if (isArray(expression, context)) {
-            return parseArray(expression, context, path);
-        } else if (isMethod(expression, context)) {
-            return parseMethod(expression, context, path, env);
-        } else if (isMemberSelect(expression, context)) {
-            return parseMemberSelect(expression, env, context, path);
-        } else if (isParentheses(expression, context)) {
-            return parseParentheses(expression, context, path);
+        if (context.parsingMember
+                && !(node instanceof Identifier
+                        || node instanceof FlowExpressionSyntax.MethodCall
+                        || node instanceof MemberSelect
+                        || node instanceof FlowExpressionSyntax.ArrayAccess)) {
+            // Only identifiers and method calls can be the member of a member select, though
+            // "null", "this", and "super" are looked up like identifiers.
+            if (node instanceof NullLiteral || node instanceof This || node instanceof Super) {
+                return parseIdentifier(node.text, env, path, context);
+            }
+            throw constructParserException(node.text, "could not parse string");
+        }
+
+        if (node instanceof NullLiteral) {
+            return new ValueLiteral(types.getNullType(), (Object) null);
+        } else if (node instanceof IntLiteral) {
+            return new ValueLiteral(
+                    types.getPrimitiveType(TypeKind.INT), ((IntLiteral) node).value);
+        } else if (node instanceof LongLiteral) {
+            return new ValueLiteral(
+                    types.getPrimitiveType(TypeKind.LONG), ((LongLiteral) node).value);
+        } else if (node instanceof StringLiteral) {
+            TypeElement stringTypeElem = env.getElementUtils().getTypeElement("java.lang.String");
+            return new ValueLiteral(
+                    types.getDeclaredType(stringTypeElem), ((StringLiteral) node).value);
+        } else if (node instanceof This) {
+            return parseThis(context);
+        } else if (node instanceof Super) {
+            return parseSuper(node.text, types, context);
+        } else if (node instanceof Identifier) {
+            return parseIdentifier(node.text, env, path, context);
+        } else if (node instanceof Parameter) {
+            return parseParameter((Parameter) node, context);
+        } else if (node instanceof FlowExpressionSyntax.ArrayAccess) {
+            return parseArray((FlowExpressionSyntax.ArrayAccess) node, context, path);
+        } else if (node instanceof FlowExpressionSyntax.MethodCall) {
+            return parseMethod((FlowExpressionSyntax.MethodCall) node, context, path, env);
+        } else if (node instanceof MemberSelect) {
+            return parseMemberSelect(
+                    (MemberSelect) node, env, context, path, !context.parsingMember);
         } else {
-            throw constructParserException(expression, "could not parse string");
+            throw constructParserException(node.text, "could not parse string");
         }
     }
 
-    private static boolean isMemberSelect(String s, FlowExpressionContext context) {
-        Matcher dotMatcher = memberselect.matcher(s);
-        return dotMatcher.matches();
-    }
-
+    /**
+     * Returns the {@link Receiver} for a member select.
+     *
+     * @param matchPackage whether to try to match a prefix of the member select to a package and
+     *     class name. It is only tried for the outermost member select of a chain.
+     */
     private static Receiver parseMemberSelect(
-            String s, ProcessingEnvironment env, FlowExpressionContext context, TreePath path)
+            MemberSelect node,
+            ProcessingEnvironment env,
+            FlowExpressionContext context,
+            TreePath path,
+            boolean matchPackage)
             throws FlowExpressionParseException {
-        Matcher dotMatcher = memberselect.matcher(s);
-        if (!dotMatcher.matches()) {
-            assert false : "isMemberSelect must be called first";
-        }
-        Receiver receiver;
-        String memberSelected;
-
-        Resolver resolver = new Resolver(env);
+        String s = node.text;
+        Receiver receiver = null;
+        FlowExpressionSyntax.Node member = node.member;
 
         // Attempt to match a package and class name first.
-        Pair<ClassName, String> classAndRemainingString =
-                matchPackageAndClassNameWithinExpression(s, resolver, path);
-        if (classAndRemainingString != null) {
-            receiver = classAndRemainingString.first;
-            memberSelected = classAndRemainingString.second;
-            if (memberSelected == null) {
-                throw constructParserException(
-                        s, "a class cannot terminate a flow expression string");
+        if (matchPackage) {
+            Resolver resolver = new Resolver(env);
+            Pair<ClassName, String> classAndRemainingString =
+                    matchPackageAndClassNameWithinExpression(s, resolver, path);
+            if (classAndRemainingString != null) {
+                receiver = classAndRemainingString.first;
+                String memberSelected = classAndRemainingString.second;
+                if (memberSelected == null) {
+                    throw constructParserException(
+                            s, "a class cannot terminate a flow expression string");
+                }
+                member = FlowExpressionSyntax.parse(memberSelected.trim());
+            }
+        }
+        if (receiver == null) {
+            if (node.receiver instanceof MemberSelect) {
+                receiver =
+                        parseMemberSelect(
+                                (MemberSelect) node.receiver, env, context, path, false);
+            } else {
+                receiver = resolve(node.receiver, context, path);
             }
-        } else {
-            String receiverString = dotMatcher.group(1);
-            memberSelected = dotMatcher.group(2);
-            receiver = parseHelper(receiverString, context, path);
         }
 
-        if (memberSelected.equals("class")) {
+        if (member instanceof Identifier && member.text.equals("class")) {
             if (receiver instanceof FlowExpressions.ClassName && !context.parsingMember) {
                 return receiver;
             } else {
@@ -215,76 +232,10 @@ public class FlowExpressionParseUtil {
 
         // Parse the rest, with a new receiver.
         FlowExpressionContext newContext = context.copyChangeToParsingMemberOfReceiver(receiver);
-        return parseHelper(memberSelected, newContext, path);
-    }
-
-    //########
-
-    private static boolean isNullLiteral(String s, FlowExpressionContext context) {
-        if (context.parsingMember) {
-            return false;
-        }
-        Matcher nullMatcher = nullPattern.matcher(s);
-        return nullMatcher.matches();
-    }
-
-    private static Receiver parseNullLiteral(String expression, Types types) {
-        return new ValueLiteral(types.getNullType(), (Object) null);
-    }
-
-    private static boolean isIntLiteral(String s, FlowExpressionContext context) {
-        if (context.parsingMember) {
-            return false;
-        }
-        Matcher intMatcher = intPattern.matcher(s);
-        return intMatcher.matches();
-    }
-
-    private static Receiver parseIntLiteral(String s, Types types) {
-        int val = Integer.parseInt(s);
-        return new ValueLiteral(types.getPrimitiveType(TypeKind.INT), val);
-    }
-
-    private static boolean isLongLiteral(String s, FlowExpressionContext context) {
-        if (context.parsingMember) {
-            return false;
-        }
-        Matcher longMatcher = longPattern.matcher(s);
-        return longMatcher.matches();
-    }
-
-    private static Receiver parseLongLiteral(String s, Types types) {
-        //Remove L or l at the end of a long literal
-        s = s.substring(0, s.length() - 1);
-        long val = Long.parseLong(s);
-        return new ValueLiteral(types.getPrimitiveType(TypeKind.LONG), val);
-    }
-
-    private static boolean isStringLiteral(String s, FlowExpressionContext context) {
-        if (context.parsingMember) {
-            return false;
-        }
-        Matcher stringMatcher = stringPattern.matcher(s);
-        return stringMatcher.matches();
-    }
-
-    private static Receiver parseStringLiteral(String s, Types types, Elements elements) {
-        TypeElement stringTypeElem = elements.getTypeElement("java.lang.String");
-        return new ValueLiteral(
-                types.getDeclaredType(stringTypeElem), s.substring(1, s.length() - 1));
-    }
-
-    private static boolean isThisLiteral(String s, FlowExpressionContext context) {
-        if (context.parsingMember) {
-            // TODO: this is probably wrong because you could have and inner class receiver
-            // Outer.this
-            return false;
-        }
-        Matcher thisMatcher = thisPattern.matcher(s);
-        return thisMatcher.matches();
+        return resolve(member, newContext, path);
     }
 
-    private static Receiver parseThis(String s, FlowExpressionContext context) {
+    private static Receiver parseThis(FlowExpressionContext context) {
         if (!(context.receiver == null || context.receiver.containsUnknown())) {
             // "this" is the receiver of the context
             return context.receiver;
@@ -293,14 +244,6 @@ public class FlowExpressionParseUtil {
         }
     }
 
-    private static boolean isSuperLiteral(String s, FlowExpressionContext context) {
-        if (context.parsingMember) {
-            return false;
-        }
-        Matcher superMatcher = superPattern.matcher(s);
-        return superMatcher.matches();
-    }
-
     private static Receiver parseSuper(String s, Types types, FlowExpressionContext context)
             throws FlowExpressionParseException {
         // super literal
@@ -324,11 +267,6 @@ public class FlowExpressionParseUtil {
         return new ThisReference(superType);
     }
 
-    private static boolean isIdentifier(String s, FlowExpressionContext context) {
-        Matcher identifierMatcher = identifierPattern.matcher(s);
-        return identifierMatcher.matches();
-    }
-
     private static Receiver parseIdentifier(
             String s, ProcessingEnvironment env, TreePath path, FlowExpressionContext context)
             throws FlowExpressionParseException {
@@ -409,30 +347,12 @@ public class FlowExpressionParseUtil {
         return new FieldAccess(locationOfField, fieldType, fieldElem);
     }
 
-    private static boolean isParameter(String s, FlowExpressionContext contex) {
-        if (contex.parsingMember) {
-            return false;
-        }
-        Matcher parameterMatcher = parameterPattern.matcher(s);
-        return parameterMatcher.matches();
-    }
-
-    private static Receiver parseParameter(String s, FlowExpressionContext context)
+    private static Receiver parseParameter(Parameter node, FlowExpressionContext context)
             throws FlowExpressionParseException {
-        Matcher parameterMatcher = parameterPattern.matcher(s);
-        if (!parameterMatcher.matches()) {
-            return null;
-        }
         if (context.arguments == null) {
-            throw constructParserException(s, "No parameter found.");
-        }
-        int idx = -1;
-        try {
-            idx = Integer.parseInt(parameterMatcher.group(1));
-        } catch (NumberFormatException e) {
-            // cannot occur by the way the pattern is defined (matches only numbers)
-            assert false;
+            throw constructParserException(node.text, "No parameter found.");
         }
+        int idx = node.index;
         if (idx > context.arguments.size()) {
             throw new FlowExpressionParseException(
                     Result.failure("flowexpr.parse.index.too.big", Integer.toString(idx)));
@@ -440,26 +360,21 @@ public class FlowExpressionParseUtil {
         return context.arguments.get(idx - 1);
     }
 
-    private static boolean isMethod(String s, FlowExpressionContext contex) {
-        Matcher methodMatcher = methodPattern.matcher(s);
-        return methodMatcher.matches();
-    }
-
     private static Receiver parseMethod(
-            String s, FlowExpressionContext context, TreePath path, ProcessingEnvironment env)
+            FlowExpressionSyntax.MethodCall node,
+            FlowExpressionContext context,
+            TreePath path,
+            ProcessingEnvironment env)
             throws FlowExpressionParseException {
-        Matcher methodMatcher = methodPattern.matcher(s);
-
-        if (!methodMatcher.matches()) {
-            return null;
-        }
-        String methodName = methodMatcher.group(1);
+        String s = node.text;
+        String methodName = node.name;
 
         // parse parameter list
-        String parameterList = methodMatcher.group(2);
-        List<Receiver> parameters =
-                ParameterListParser.parseParameterList(
-                        parameterList, true, context.copyAndUseOuterReceiver(), path);
+        FlowExpressionContext contextForParameters = context.copyAndUseOuterReceiver();
+        List<Receiver> parameters = new ArrayList<>(node.arguments.size());
+        for (FlowExpressionSyntax.Node argument : node.arguments) {
+            parameters.add(resolve(argument, contextForParameters, path));
+        }
 
         // get types for parameters
         List<TypeMirror> parameterTypes = new ArrayList<>();
@@ -543,23 +458,13 @@ public class FlowExpressionParseUtil {
         }
     }
 
-    private static boolean isArray(String s, FlowExpressionContext context) {
-        Matcher arraymatcher = arrayPattern.matcher(s);
-        return arraymatcher.matches();
-    }
-
-    private static Receiver parseArray(String s, FlowExpressionContext context, TreePath path)
+    private static Receiver parseArray(
+            FlowExpressionSyntax.ArrayAccess node, FlowExpressionContext context, TreePath path)
             throws FlowExpressionParseException {
-        Matcher arraymatcher = arrayPattern.matcher(s);
-        if (!arraymatcher.matches()) {
-            return null;
-        }
-
-        String receiverStr = arraymatcher.group(1);
-        String indexStr = arraymatcher.group(2);
-        Receiver receiver = parseHelper(receiverStr, context, path);
+        String s = node.text;
+        Receiver receiver = resolve(node.array, context, path);
         FlowExpressionContext contextForIndex = context.copyAndUseOuterReceiver();
-        Receiver index = parseHelper(indexStr, contextForIndex, path);
+        Receiver index = resolve(node.index, contextForIndex, path);
         TypeMirror receiverType = receiver.getType();
         if (!(receiverType instanceof ArrayType)) {
             throw constructParserException(
@@ -570,23 +475,6 @@ public class FlowExpressionParseUtil {
         return result;
     }
 
-    private static boolean isParentheses(String s, FlowExpressionContext contex) {
-        Matcher parenthesesMatcher = parenthesesPattern.matcher(s);
-        return parenthesesMatcher.matches();
-    }
-
-    private static Receiver parseParentheses(String s, FlowExpressionContext context, TreePath path)
-            throws FlowExpressionParseException {
-        Matcher parenthesesMatcher = parenthesesPattern.matcher(s);
-        if (!parenthesesMatcher.matches()) {
-            return null;
-        }
-        String expressionString = parenthesesMatcher.group(1);
-        // Do not modify the value of recursiveCall, since a parenthesis match is essentially
-        // a match to a no-op and should not semantically affect the parsing.
-        return parseHelper(expressionString, context, path);
-    }
-
     /**
      * Matches a substring of {@code expression} to a package and class name (starting from the
      * beginning of the string).
@@ -736,134 +624,6 @@ public class FlowExpressionParseUtil {
         return Pair.of(result, remainingString);
     }
 
-    /**
-     * A very simple parser for parameter lists, i.e. strings of the form {@code a, b, c} for some
-     * expressions {@code a}, {@code b} and {@code c}.
-     *
-     * @author Stefan Heule
-     */
-    private static class ParameterListParser {
-
-        /**
-         * Parse a parameter list and return the parameters as a list (or throw a {@link
-         * FlowExpressionParseException}).
-         */
-        private static List<Receiver> parseParameterList(
-                String parameterString,
-                boolean allowEmptyList,
-                FlowExpressionContext context,
-                TreePath path)
-                throws FlowExpressionParseException {
-            ArrayList<Receiver> result = new ArrayList<>();
-            // the index of the character in 'parameterString' that the parser
-            // is currently looking at
-            int idx = 0;
-            // how deeply are method calls nested at this point? callLevel is 0
-            // in the beginning, and increases with every method call by 1. For
-            // instance it would be 2 at the end of the following string:
-            // "get(get(1,2,"
-            int callLevel = 0;
-            // is the parser currently in a string literal?
-            boolean inString = false;
-            while (true) {
-                // end of string reached
-                if (idx == parameterString.length()) {
-                    // finish current param
-                    if (inString) {
-                        throw constructParserException(parameterString, "unterminated string");
-                    } else if (callLevel > 0) {
-                        throw constructParserException(
-                                parameterString,
-                                "unterminated method invocation, callLevel==" + callLevel);
-                    } else {
-                        finishParam(parameterString, allowEmptyList, context, path, result, idx);
-                        return result;
-                    }
-                }
-
-                // get next character
-                char next = parameterString.charAt(idx);
-                idx++;
-
-                // case split on character
-                switch (next) {
-                    case ',':
-                        if (inString) {
-                            // stay in same state and consume the character
-                        } else {
-                            if (callLevel == 0) {
-                                // parse first parameter
-                                finishParam(
-                                        parameterString,
-                                        allowEmptyList,
-                                        context,
-                                        path,
-                                        result,
-                                        idx - 1);
-                                // parse remaining parameters
-                                List<Receiver> rest =
-                                        parseParameterList(
-                                                parameterString.substring(idx),
-                                                false,
-                                                context,
-                                                path);
-                                result.addAll(rest);
-                                return result;
-                            } else {
-                                // not the outermost method call, defer parsing of
-                                // this parameter list to recursive call.
-                            }
-                        }
-                        break;
-                    case '"':
-                        // start or finish string
-                        inString = !inString;
-                        break;
-                    case '(':
-                        if (inString) {
-                            // stay in same state and consume the character
-                        } else {
-                            callLevel++;
-                        }
-                        break;
-                    case ')':
-                        if (inString) {
-                            // stay in same state and consume the character
-                        } else {
-                            if (callLevel == 0) {
-                                throw constructParserException(parameterString, "callLevel==0");
-                            } else {
-                                callLevel--;
-                            }
-                        }
-                        break;
-                    default:
-                        // stay in same state and consume the character
-                        break;
-                }
-            }
-        }
-
-        private static void finishParam(
-                String parameterString,
-                boolean allowEmptyList,
-                FlowExpressionContext context,
-                TreePath path,
-                ArrayList<Receiver> result,
-                int idx)
-                throws FlowExpressionParseException {
-            if (idx == 0) {
-                if (allowEmptyList) {
-                    return;
-                } else {
-                    throw constructParserException(parameterString, "empty parameter list; idx==0");
-                }
-            } else {
-                result.add(parseHelper(parameterString.substring(0, idx), context, path));
-            }
-        }
-    }
-
     /**
      * @return a list of 1-based indices of all formal parameters that occur in {@code s}. Each
      *     formal parameter occurs in s as a string like "#1" or "#4". This routine does not do
@@ -0,0 +1,405 @@
+package org.checkerframework.framework.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import org.checkerframework.framework.source.Result;
+import org.checkerframework.framework.util.FlowExpressionParseUtil.FlowExpressionParseException;
+import org.checkerframework.javacutil.CollectionUtils;
+
+/**
+ * The syntax trees of flow expression strings, and a recursive-descent parser that creates them.
+ * The grammar is:
+ *
+ * <pre>
+ * expression ::= primary ( "." member | "[" expression "]" )*
+ * member     ::= identifier [ arguments ]
+ * primary    ::= "null" | "this" | "super" | integer | long | string | "#" digits
+ *              | identifier [ arguments ] | "(" expression ")"
+ * arguments  ::= "(" [ expression ( "," expression )* ] ")"
+ * </pre>
+ *
+ * A syntax tree does not depend on where the expression is used. {@link FlowExpressionParseUtil}
+ * resolves the identifiers, the receiver, and the parameters of a tree for each use. Syntax trees
+ * are immutable, so the tree of each string is parsed once and then shared, also between threads.
+ */
+final class FlowExpressionSyntax {
+
+    /** The maximum number of syntax trees that are cached. */
+    private static final int CACHE_SIZE = 1000;
+
+    /** Maps an expression string to its syntax tree. */
+    private static final Map<String, Node> cache =
+            Collections.synchronizedMap(CollectionUtils.<String, Node>createLRUCache(CACHE_SIZE));
+
+    private FlowExpressionSyntax() {
+        throw new AssertionError("Class FlowExpressionSyntax cannot be instantiated.");
+    }
+
+    /**
+     * Returns the syntax tree of {@code expression}.
+     *
+     * @param expression a flow expression string
+     * @return the syntax tree of expression
+     * @throws FlowExpressionParseException if expression is not syntactically valid
+     */
+    static Node parse(String expression) throws FlowExpressionParseException {
+        Node result = cache.get(expression);
+        if (result == null) {
+            result = new Parser(expression).parseAll();
+            cache.put(expression, result);
+        }
+        return result;
+    }
+
+    /** A node of a syntax tree. */
+    abstract static class Node {
+        /** The source text of this node, without surrounding whitespace. */
+        final String text;
+
+        Node(String text) {
+            this.text = text;
+        }
+
+        @Override
+        public String toString() {
+            return text;
+        }
+    }
+
+    /** The {@code null} literal. */
+    static final class NullLiteral extends Node {
+        NullLiteral(String text) {
+            super(text);
+        }
+    }
+
+    /** An {@code int} literal. */
+    static final class IntLiteral extends Node {
+        final int value;
+
+        IntLiteral(String text, int value) {
+            super(text);
+            this.value = value;
+        }
+    }
+
+    /** A {@code long} literal. */
+    static final class LongLiteral extends Node {
+        final long value;
+
+        LongLiteral(String text, long value) {
+            super(text);
+            this.value = value;
+        }
+    }
+
+    /** A string literal. Escape sequences in it are not interpreted. */
+    static final class StringLiteral extends Node {
+        /** The characters between the quotes. */
+        final String value;
+
+        StringLiteral(String text, String value) {
+            super(text);
+            this.value = value;
+        }
+    }
+
+    /** {@code this}. */
+    static final class This extends Node {
+        This(String text) {
+            super(text);
+        }
+    }
+
+    /** {@code super}. */
+    static final class Super extends Node {
+        Super(String text) {
+            super(text);
+        }
+    }
+
+    /** A formal parameter use such as {@code #1}. */
+    static final class Parameter extends Node {
+        /** The 1-based index of the parameter. */
+        final int index;
+
+        Parameter(String text, int index) {
+            super(text);
+            this.index = index;
+        }
+    }
+
+    /** An identifier, which may name a local variable, a field, or a class. */
+    static final class Identifier extends Node {
+        Identifier(String text) {
+            super(text);
+        }
+    }
+
+    /** A method call without an explicit receiver, or the member of a member select. */
+    static final class MethodCall extends Node {
+        final String name;
+        final List<Node> arguments;
+
+        MethodCall(String text, String name, List<Node> arguments) {
+            super(text);
+            this.name = name;
+            this.arguments = arguments;
+        }
+    }
+
+    /** A member select {@code receiver.member}, where member is an identifier or a call. */
+    static final class MemberSelect extends Node {
+        final Node receiver;
+        /** An {@link Identifier}, including {@code class}, or a {@link MethodCall}. */
+        final Node member;
+
+        MemberSelect(String text, Node receiver, Node member) {
+            super(text);
+            this.receiver = receiver;
+            this.member = member;
+        }
+    }
+
+    /** An array access {@code array[index]}. */
+    static final class ArrayAccess extends Node {
+        final Node array;
+        final Node index;
+
+        ArrayAccess(String text, Node array, Node index) {
+            super(text);
+            this.array = array;
+            this.index = index;
+        }
+    }
+
+    /** A recursive-descent parser for one expression string. */
+    private static class Parser {
+        /** The string that is parsed. */
+        private final String input;
+
+        /** The index of the next character to parse. */
+        private int pos = 0;
+
+        Parser(String input) {
+            this.input = input;
+        }
+
+        /** Parses the whole input, which must be exactly one expression. */
+        Node parseAll() throws FlowExpressionParseException {
+            Node result = parseExpression();
+            skipWhitespace();
+            if (pos != input.length()) {
+                throw error("unexpected '" + input.charAt(pos) + "'");
+            }
+            return result;
+        }
+
+        private Node parseExpression() throws FlowExpressionParseException {
+            skipWhitespace();
+            int start = pos;
+            Node result = parsePrimary();
+            while (true) {
+                skipWhitespace();
+                if (accept('.')) {
+                    Node member = parseMember();
+                    result = new MemberSelect(textFrom(start), result, member);
+                } else if (accept('[')) {
+                    Node index = parseExpression();
+                    expect(']');
+                    result = new ArrayAccess(textFrom(start), result, index);
+                } else {
+                    return result;
+                }
+            }
+        }
+
+        private Node parseMember() throws FlowExpressionParseException {
+            skipWhitespace();
+            int start = pos;
+            String name = parseIdentifier();
+            if (name == null) {
+                throw error("identifier expected after '.'");
+            }
+            return parseCallOrIdentifier(start, name);
+        }
+
+        private Node parsePrimary() throws FlowExpressionParseException {
+            int start = pos;
+            if (pos == input.length()) {
+                throw error("expression expected");
+            }
+            char c = input.charAt(pos);
+            if (c == '(') {
+                pos++;
+                Node result = parseExpression();
+                expect(')');
+                return result;
+            } else if (c == '"') {
+                return parseString();
+            } else if (c == '#') {
+                pos++;
+                int digitsStart = pos;
+                if (!skipDigits() || input.charAt(digitsStart) == '0') {
+                    throw error("parameter index expected after '#'");
+                }
+                return new Parameter(textFrom(start), parseInt(textFrom(digitsStart)));
+            } else if (c == '+' || c == '-' || isDigit(c)) {
+                return parseNumber();
+            }
+
+            String name = parseIdentifier();
+            if (name == null) {
+                throw error("unexpected '" + c + "'");
+            }
+            switch (name) {
+                case "null":
+                    return new NullLiteral(name);
+                case "this":
+                    return new This(name);
+                case "super":
+                    return new Super(name);
+                default:
+                    return parseCallOrIdentifier(start, name);
+            }
+        }
+
+        /** Parses the arguments of a call of {@code name}, if there are any. */
+        private Node parseCallOrIdentifier(int start, String name)
+                throws FlowExpressionParseException {
+            if (pos == input.length() || input.charAt(pos) != '(') {
+                return new Identifier(name);
+            }
+            pos++;
+            List<Node> arguments = new ArrayList<>();
+            skipWhitespace();
+            if (!accept(')')) {
+                do {
+                    arguments.add(parseExpression());
+                    skipWhitespace();
+                } while (accept(','));
+                expect(')');
+            }
+            return new MethodCall(textFrom(start), name, Collections.unmodifiableList(arguments));
+        }
+
+        private Node parseNumber() throws FlowExpressionParseException {
+            int start = pos;
+            if (input.charAt(pos) == '+' || input.charAt(pos) == '-') {
+                pos++;
+            }
+            if (!skipDigits()) {
+                throw error("digit expected");
+            }
+            if (pos < input.length() && (input.charAt(pos) == 'L' || input.charAt(pos) == 'l')) {
+                String digits = textFrom(start);
+                pos++;
+                try {
+                    return new LongLiteral(textFrom(start), Long.parseLong(digits));
+                } catch (NumberFormatException e) {
+                    throw error("long literal out of range");
+                }
+            }
+            return new IntLiteral(textFrom(start), parseInt(textFrom(start)));
+        }
+
+        private int parseInt(String digits) throws FlowExpressionParseException {
+            try {
+                return Integer.parseInt(digits);
+            } catch (NumberFormatException e) {
+                throw error("integer literal out of range");
+            }
+        }
+
+        private Node parseString() throws FlowExpressionParseException {
+            int start = pos;
+            pos++; // opening quote
+            while (pos < input.length() && input.charAt(pos) != '"') {
+                if (input.charAt(pos) == '\\') {
+                    pos++;
+                }
+                pos++;
+            }
+            if (pos >= input.length()) {
+                throw error("unterminated string");
+            }
+            pos++; // closing quote
+            String text = textFrom(start);
+            return new StringLiteral(text, text.substring(1, text.length() - 1));
+        }
+
+        /**
+         * Parses an identifier, which may also be a keyword.
+         *
+         * @return the identifier, or null if there is none at the current position
+         */
+        private String parseIdentifier() {
+            int start = pos;
+            if (pos < input.length() && isIdentifierStart(input.charAt(pos))) {
+                pos++;
+                while (pos < input.length() && isIdentifierPart(input.charAt(pos))) {
+                    pos++;
+                }
+                return input.substring(start, pos);
+            }
+            return null;
+        }
+
+        /** Skips digits and returns true if there was at least one. */
+        private boolean skipDigits() {
+            int start = pos;
+            while (pos < input.length() && isDigit(input.charAt(pos))) {
+                pos++;
+            }
+            return pos > start;
+        }
+
+        private void skipWhitespace() {
+            while (pos < input.length() && Character.isWhitespace(input.charAt(pos))) {
+                pos++;
+            }
+        }
+
+        /** Consumes {@code c} if it is the next character and returns whether it was. */
+        private boolean accept(char c) {
+            if (pos < input.length() && input.charAt(pos) == c) {
+                pos++;
+                return true;
+            }
+            return false;
+        }
+
+        private void expect(char c) throws FlowExpressionParseException {
+            skipWhitespace();
+            if (!accept(c)) {
+                throw error("'" + c + "' expected");
+            }
+        }
+
+        private String textFrom(int start) {
+            return input.substring(start, pos);
+        }
+
+        private FlowExpressionParseException error(String explanation) {
+            String message =
+                    input + ": could not parse string: " + explanation + " at index " + pos;
+            return new FlowExpressionParseException(
+                    Result.failure("flowexpr.parse.error", message));
+        }
+
+        // Identifiers are restricted to ASCII, like FlowExpressionParseUtil.identifierRegex.
+        private static boolean isIdentifierStart(char c) {
+            return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || c == '_' || c == '$';
+        }
+
+        private static boolean isIdentifierPart(char c) {
+            return isIdentifierStart(c) || isDigit(c);
+        }
+
+        private static boolean isDigit(char c) {
+            return c >= '0' && c <= '9';
+        }
+    }
+}
@@ -183,7 +183,7 @@ public class QualifierPolymorphism {
      * @param type the type to annotate
      */
     public void annotate(MethodInvocationTree tree, AnnotatedExecutableType type) {
-        if (polyQuals.isEmpty()) {
+        if (polyQuals.isEmpty() || !hasPolymorphicQualifier(type)) {
             return;
         }
         // javac produces enum super calls with zero arguments even though the
@@ -222,7 +222,7 @@ public class QualifierPolymorphism {
     }
 
     public void annotate(NewClassTree tree, AnnotatedExecutableType type) {
-        if (polyQuals.isEmpty()) {
+        if (polyQuals.isEmpty() || !hasPolymorphicQualifier(type)) {
             return;
         }
         List<AnnotatedTypeMirror> requiredArgs =
@@ -279,6 +279,48 @@ public class QualifierPolymorphism {
         }
     }
 
+    /**
+     * Whether or not type has any polymorphic qualifier. If the type of an invoked method does not
+     * have a polymorphic qualifier, then there is nothing to resolve. (This check avoids computing
+     * the types of the arguments unless absolutely required.)
+     */
+    private boolean hasPolymorphicQualifier(AnnotatedTypeMirror type) {
+        Boolean b = new ContainsPolymorphicQualifier().visit(type);
+        if (b == null) {
+            return false;
+        }
+        return b;
+    }
+
+    /** Checks whether or not an annotated type contains a polymorphic qualifier. */
+    private class ContainsPolymorphicQualifier extends AnnotatedTypeScanner<Boolean, Void> {
+        @Override
+        protected Boolean scan(AnnotatedTypeMirror type, Void aVoid) {
+            if (type == null) {
+                return false;
+            }
+            for (AnnotationMirror poly : polyQuals.values()) {
+                if (type.hasAnnotation(poly)) {
+                    return true;
+                }
+            }
+            return super.scan(type, aVoid);
+        }
+
+        @Override
+        protected Boolean reduce(Boolean r1, Boolean r2) {
+            if (r1 != null && r2 != null) {
+                return r1 || r2;
+            } else if (r1 != null) {
+                return r1;
+            } else if (r2 != null) {
+                return r2;
+            } else {
+                return false;
+            }
+        }
+    }
+
     private final AnnotatedTypeScanner<Void, Map<AnnotationMirror, Set<? extends AnnotationMirror>>>
             replacer =
                     new AnnotatedTypeScanner<
@@ -4,7 +4,10 @@ import com.sun.source.tree.CompilationUnitTree;
 import com.sun.source.tree.Tree;
 import com.sun.source.util.TreePath;
 import com.sun.source.util.TreeScanner;
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.Map;
 
 /**
@@ -14,17 +17,55 @@ import java.util.Map;
  * intermediate TreePaths that are generated. The intermediate TreePaths are reused when other
  * targets have overlapping paths.
  *
+ * <p>Alternatively, a TreePathCacher can index the parent of every tree of a compilation unit in a
+ * single scan, the first time a path in that compilation unit is requested. Then each path is
+ * built by following the parents up to a tree whose path is already cached, instead of by scanning
+ * the compilation unit from its root again.
+ *
  * @author mcarthur
  */
 public class TreePathCacher extends TreeScanner<TreePath, Tree> {
 
     private final Map<Tree, TreePath> foundPaths = new HashMap<>();
+
+    /** Whether the parents of all trees of a compilation unit are indexed. */
+    private final boolean indexParents;
+
+    /** Maps each tree of {@link #indexedRoot} to its parent, and the root itself to null. */
+    private final Map<Tree, Tree> parents = new IdentityHashMap<>();
+
+    /** The compilation unit whose trees are in {@link #parents}, or null if there is none. */
+    private CompilationUnitTree indexedRoot = null;
+
     /**
      * The TreePath of the previous tree scanned. It is always set back to null after a scan has
      * completed.
      */
     private TreePath path;
 
+    /** Creates a TreePathCacher that scans for each tree whose path is not cached. */
+    public TreePathCacher() {
+        this(false);
+    }
+
+    /**
+     * Creates a TreePathCacher.
+     *
+     * @param indexParents whether to index the parents of all trees of a compilation unit rather
+     *     than to scan for each tree whose path is not cached
+     */
+    public TreePathCacher(boolean indexParents) {
+        this.indexParents = indexParents;
+    }
+
+    /**
+     * @return true if the parents of all trees of a compilation unit are indexed, so that looking
+     *     up a path never scans the compilation unit more than once
+     */
+    public boolean indexesParents() {
+        return indexParents;
+    }
+
     /**
      * @param target the tree to search for
      * @return true if the tree is cached
@@ -45,6 +86,9 @@ public class TreePathCacher extends TreeScanner<TreePath, Tree> {
      *     compilation root
      */
     public TreePath getPath(CompilationUnitTree root, Tree target) {
+        if (indexParents) {
+            return getIndexedPath(root, target);
+        }
         if (foundPaths.containsKey(target)) {
             return foundPaths.get(target);
         }
@@ -62,6 +106,69 @@ public class TreePathCacher extends TreeScanner<TreePath, Tree> {
         return null;
     }
 
+    /**
+     * Return the TreePath for a Tree using the index of the parents of the trees of root, which is
+     * created if necessary. The paths of target and of all its ancestors are cached.
+     *
+     * @param root the compilation unit to search in
+     * @param target the target tree to look for
+     * @return the TreePath corresponding to target, or null if target is not found in the
+     *     compilation root
+     */
+    private TreePath getIndexedPath(CompilationUnitTree root, Tree target) {
+        if (root != indexedRoot) {
+            clear();
+            new ParentIndexer(parents).scan(root, null);
+            indexedRoot = root;
+        }
+        if (!parents.containsKey(target)) {
+            return null;
+        }
+
+        // Collect the ancestors of target up to the first one whose path is known.
+        Deque<Tree> uncached = new ArrayDeque<>();
+        TreePath path;
+        Tree tree = target;
+        while ((path = foundPaths.get(tree)) == null) {
+            uncached.push(tree);
+            tree = parents.get(tree);
+            if (tree == null) {
+                break;
+            }
+        }
+
+        while (!uncached.isEmpty()) {
+            Tree leaf = uncached.pop();
+            // Only the root has no path to extend.
+            path = path == null ? new TreePath(root) : new TreePath(path, leaf);
+            foundPaths.put(leaf, path);
+        }
+        return path;
+    }
+
+    /**
+     * Records the parent of every tree it scans. A tree that occurs more than once has the parent
+     * of its first occurrence, which is the occurrence a scan for it would find.
+     */
+    private static class ParentIndexer extends TreeScanner<Void, Tree> {
+        /** The map the parents are recorded in. */
+        private final Map<Tree, Tree> parents;
+
+        ParentIndexer(Map<Tree, Tree> parents) {
+            this.parents = parents;
+        }
+
+        /** Records the parent of tree, then scans its children with tree as their parent. */
+        @Override
+        public Void scan(Tree tree, Tree parent) {
+            if (tree == null || parents.containsKey(tree)) {
+                return null;
+            }
+            parents.put(tree, parent);
+            return super.scan(tree, tree);
+        }
+    }
+
     private static class Result extends Error {
         private static final long serialVersionUID = 4948452207518392627L;
         TreePath path;
@@ -73,6 +180,8 @@ public class TreePathCacher extends TreeScanner<TreePath, Tree> {
 
     public void clear() {
         foundPaths.clear();
+        parents.clear();
+        indexedRoot = null;
     }
 
     /** Scan a single node. The current path is updated for the duration of the scan. */
@@ -12,6 +12,8 @@ import com.sun.source.tree.VariableTree;
 import com.sun.source.util.TreePath;
 import com.sun.tools.javac.code.Type.WildcardType;
 import java.lang.annotation.Annotation;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.EnumSet;
 import java.util.IdentityHashMap;
 import java.util.List;
@@ -92,6 +94,11 @@ public class QualifierDefaults {
     protected static final Map<Element, BoundType> elementToBoundType =
             CollectionUtils.createLRUCache(CACHE_SIZE);
 
+    /** Clears {@link #elementToBoundType}, which refers to the elements of a compilation. */
+    public static void clearCaches() {
+        elementToBoundType.clear();
+    }
+
     /**
      * Defaults that apply for a certain Element. On the one hand this is used for caching (an
      * earlier name for the field was "qualifierCache"). It can also be used by type systems to set
@@ -102,6 +109,12 @@ public class QualifierDefaults {
     /** A mapping of Element &rarr; Whether or not that element is AnnotatedFor this type system. */
     private final Map<Element, Boolean> elementAnnotatedFors = new IdentityHashMap<>();
 
+    /**
+     * Mapping from an Element to the defaults to apply to the types in its scope. Cleared whenever
+     * a default is added.
+     */
+    private final Map<Element, List<Default>> elementDefaultsToApply = new IdentityHashMap<>();
+
     /** CLIMB locations whose standard default is top for a given type system. */
     public static final TypeUseLocation[] standardClimbDefaultsTop = {
         TypeUseLocation.LOCAL_VARIABLE,
@@ -266,6 +279,7 @@ public class QualifierDefaults {
             AnnotationMirror absoluteDefaultAnno, TypeUseLocation location) {
         checkDuplicates(checkedCodeDefaults, absoluteDefaultAnno, location);
         checkedCodeDefaults.add(new Default(absoluteDefaultAnno, location));
+        elementDefaultsToApply.clear();
     }
 
     /** Sets the default annotation for unchecked elements. */
@@ -275,6 +289,7 @@ public class QualifierDefaults {
         checkIsValidUncheckedCodeLocation(uncheckedDefaultAnno, location);
 
         uncheckedCodeDefaults.add(new Default(uncheckedDefaultAnno, location));
+        elementDefaultsToApply.clear();
     }
 
     /** Sets the default annotation for unchecked elements, with specific locations. */
@@ -303,6 +318,7 @@ public class QualifierDefaults {
         }
         prevset.add(new Default(elementDefaultAnno, location));
         elementDefaults.put(elem, prevset);
+        elementDefaultsToApply.clear();
     }
 
     private void checkIsValidUncheckedCodeLocation(
@@ -695,22 +711,49 @@ public class QualifierDefaults {
      */
     private void applyDefaultsElement(
             final Element annotationScope, final AnnotatedTypeMirror type) {
-        DefaultSet defaults = defaultsAt(annotationScope);
         DefaultApplierElement applier =
                 new DefaultApplierElement(atypeFactory, annotationScope, type, applyToTypeVar);
 
-        for (Default def : defaults) {
+        for (Default def : defaultsToApply(annotationScope)) {
             applier.applyDefault(def);
         }
+    }
+
+    /**
+     * Returns the defaults to apply to a type in the given scope, in the order in which they are
+     * applied: the defaults of the enclosing elements, then the unchecked code defaults if they
+     * apply to the scope, then the checked code defaults. Defaults for locations that cannot occur
+     * in the scope are omitted. Results are cached in {@link #elementDefaultsToApply}.
+     *
+     * @param annotationScope the element representing the nearest enclosing default annotation
+     *     scope for a type
+     * @return the defaults to apply to a type in annotationScope
+     */
+    private List<Default> defaultsToApply(final Element annotationScope) {
+        List<Default> defaults = elementDefaultsToApply.get(annotationScope);
+        if (defaults != null) {
+            return defaults;
+        }
 
+        defaults = new ArrayList<>();
+        addDefaultsToApply(defaults, defaultsAt(annotationScope), annotationScope);
         if (applyUncheckedCodeDefaults(annotationScope)) {
-            for (Default def : uncheckedCodeDefaults) {
-                applier.applyDefault(def);
-            }
+            addDefaultsToApply(defaults, uncheckedCodeDefaults, annotationScope);
         }
+        addDefaultsToApply(defaults, checkedCodeDefaults, annotationScope);
 
-        for (Default def : checkedCodeDefaults) {
-            applier.applyDefault(def);
+        defaults = Collections.unmodifiableList(defaults);
+        elementDefaultsToApply.put(annotationScope, defaults);
+        return defaults;
+    }
+
+    /** Adds the defaults in toAdd that can apply to a type in annotationScope to defaults. */
+    private static void addDefaultsToApply(
+            List<Default> defaults, DefaultSet toAdd, Element annotationScope) {
+        for (Default def : toAdd) {
+            if (DefaultApplierElement.canApplyInScope(def.location, annotationScope)) {
+                defaults.add(def);
+            }
         }
     }
 
@@ -758,7 +801,75 @@ public class QualifierDefaults {
          */
         public void applyDefault(Default def) {
             this.location = def.location;
-            impl.visit(type, def.anno);
+            if (isTopLevelLocation(location)) {
+                // Only type itself, or the parameters, receiver, or return type of an executable
+                // type, can be in this location. There is no need to scan the rest of type.
+                if (shouldBeAnnotated(type, type == defaultableTypeVar)) {
+                    impl.addDefault(type, def.anno);
+                }
+            } else {
+                impl.visit(type, def.anno);
+            }
+        }
+
+        /**
+         * Returns true if a default for location is only applied to the type of the scope itself,
+         * rather than to types nested within it.
+         *
+         * @param location a location
+         * @return true if only the type of a declaration can be in location
+         */
+        private static boolean isTopLevelLocation(TypeUseLocation location) {
+            switch (location) {
+                case FIELD:
+                case LOCAL_VARIABLE:
+                case RESOURCE_VARIABLE:
+                case EXCEPTION_PARAMETER:
+                case PARAMETER:
+                case RECEIVER:
+                case RETURN:
+                    return true;
+                default:
+                    return false;
+            }
+        }
+
+        /**
+         * Returns false if a default for location is never applied to a type in scope, because the
+         * location requires a different kind of declaration.
+         *
+         * @param location a location
+         * @param scope the element representing the default annotation scope for a type
+         * @return false if no type in scope can be in location
+         */
+        private static boolean canApplyInScope(TypeUseLocation location, Element scope) {
+            if (!isTopLevelLocation(location)) {
+                return true;
+            }
+            if (scope == null) {
+                return false;
+            }
+            final ElementKind kind = scope.getKind();
+            switch (location) {
+                case FIELD:
+                    return kind == ElementKind.FIELD;
+                case LOCAL_VARIABLE:
+                    return kind == ElementKind.LOCAL_VARIABLE;
+                case RESOURCE_VARIABLE:
+                    return kind == ElementKind.RESOURCE_VARIABLE;
+                case EXCEPTION_PARAMETER:
+                    return kind == ElementKind.EXCEPTION_PARAMETER;
+                case PARAMETER:
+                    return kind == ElementKind.PARAMETER
+                            || kind == ElementKind.METHOD
+                            || kind == ElementKind.CONSTRUCTOR;
+                case RECEIVER:
+                    return kind == ElementKind.PARAMETER || kind == ElementKind.METHOD;
+                case RETURN:
+                    return kind == ElementKind.METHOD;
+                default:
+                    return true;
+            }
         }
 
         /**
@@ -816,10 +927,19 @@ public class QualifierDefaults {
 
             @Override
             public Void scan(AnnotatedTypeMirror t, AnnotationMirror qual) {
-                if (!shouldBeAnnotated(t, t == defaultableTypeVar)) {
-                    return super.scan(t, qual);
+                if (shouldBeAnnotated(t, t == defaultableTypeVar)) {
+                    addDefault(t, qual);
                 }
+                return super.scan(t, qual);
+            }
 
+            /**
+             * Applies qual to t if t is in the current location.
+             *
+             * @param t a type in type that should be annotated
+             * @param qual the default qualifier
+             */
+            private void addDefault(AnnotatedTypeMirror t, AnnotationMirror qual) {
                 switch (location) {
                     case FIELD:
                         {
@@ -983,11 +1103,8 @@ public class QualifierDefaults {
                             ErrorReporter.errorAbort(
                                     "QualifierDefaults.DefaultApplierElement: unhandled location: "
                                             + location);
-                            return null;
                         }
                 }
-
-                return super.scan(t, qual);
             }
 
             @Override
@@ -47,6 +47,7 @@ import org.checkerframework.framework.util.FlowExpressionParseUtil;
 import org.checkerframework.framework.util.FlowExpressionParseUtil.FlowExpressionContext;
 import org.checkerframework.framework.util.PluginUtil;
 import org.checkerframework.javacutil.AnnotationUtils;
+import org.checkerframework.javacutil.CollectionUtils;
 import org.checkerframework.javacutil.ElementUtils;
 import org.checkerframework.javacutil.ErrorReporter;
 import org.checkerframework.javacutil.InternalUtils;
@@ -81,8 +82,33 @@ public class DependentTypesHelper {
     /** A map of annotation classes to the names of their elements that are Java expressions. */
     private Map<Class<? extends Annotation>, List<String>> annoToElements;
 
+    /** How the dependent type annotations in the type of an executable depend on its use. */
+    private enum ExpressionDependence {
+        /** The type has no dependent type annotations. */
+        NONE,
+        /** The expressions in the type do not refer to formal parameters. */
+        RECEIVER,
+        /** Some expression in the type may refer to a formal parameter. */
+        PARAMETERS
+    }
+
+    /** Maps each executable whose uses were viewpoint adapted to how its type depends on them. */
+    private final Map<Element, ExpressionDependence> executableDependence = new HashMap<>();
+
+    /** The maximum number of viewpoint-adapted executable types that are cached. */
+    private static final int ADAPTED_CACHE_SIZE = 300;
+
+    /**
+     * Maps the executable, the class tree, the receiver, and, if they matter, the arguments of a
+     * use of an executable to the viewpoint-adapted type of the executable. The types in the cache
+     * must not be modified. Null if the type factory does not cache.
+     */
+    private final Map<List<Object>, AnnotatedExecutableType> viewpointAdaptedCache;
+
     public DependentTypesHelper(AnnotatedTypeFactory factory) {
         this.factory = factory;
+        this.viewpointAdaptedCache =
+                factory.shouldCache ? CollectionUtils.createLRUCache(ADAPTED_CACHE_SIZE) : null;
 
         this.annoToElements = new HashMap<>();
         for (Class<? extends Annotation> expressionAnno : factory.getSupportedTypeQualifiers()) {
@@ -179,9 +205,14 @@ public class DependentTypesHelper {
             List<? extends ExpressionTree> args) {
 
         Element element = TreeUtils.elementFromUse(tree);
-        AnnotatedExecutableType viewpointAdaptedType =
-                (AnnotatedExecutableType) factory.getAnnotatedType(element);
-        if (!hasDependentType(viewpointAdaptedType)) {
+        AnnotatedExecutableType viewpointAdaptedType = null;
+        ExpressionDependence dependence = executableDependence.get(element);
+        if (dependence == null) {
+            viewpointAdaptedType = (AnnotatedExecutableType) factory.getAnnotatedType(element);
+            dependence = new ExpressionDependenceClassifier().visit(viewpointAdaptedType);
+            executableDependence.put(element, dependence);
+        }
+        if (dependence == ExpressionDependence.NONE) {
             return;
         }
 
@@ -192,13 +223,42 @@ public class DependentTypesHelper {
         } else {
             receiver = FlowExpressions.internalReprOf(factory, receiverTree);
         }
-
-        List<FlowExpressions.Receiver> argReceivers = new ArrayList<>(args.size());
-        for (ExpressionTree argTree : args) {
-            argReceivers.add(FlowExpressions.internalReprOf(factory, argTree));
+        boolean cacheable = viewpointAdaptedCache != null && !receiver.containsUnknown();
+
+        // The expressions cannot refer to the arguments unless they refer to a parameter.
+        List<FlowExpressions.Receiver> argReceivers = null;
+        if (dependence == ExpressionDependence.PARAMETERS) {
+            argReceivers = new ArrayList<>(args.size());
+            for (ExpressionTree argTree : args) {
+                FlowExpressions.Receiver argReceiver =
+                        FlowExpressions.internalReprOf(factory, argTree);
+                cacheable &= !argReceiver.containsUnknown();
+                argReceivers.add(argReceiver);
+            }
         }
 
         TreePath currentPath = factory.getPath(tree);
+        cacheable &= currentPath != null;
+
+        // Identifiers in the expressions are resolved in the scope of the use, so the
+        // enclosing class of the use is part of the key.
+        List<Object> key = null;
+        if (cacheable) {
+            key =
+                    Arrays.asList(
+                            element,
+                            TreeUtils.enclosingClass(currentPath),
+                            receiver,
+                            argReceivers);
+            AnnotatedExecutableType cached = viewpointAdaptedCache.get(key);
+            if (cached != null) {
+                new ViewpointAdaptedCopier().visit(cached, typeFromUse);
+                return;
+            }
+        }
+        if (viewpointAdaptedType == null) {
+            viewpointAdaptedType = (AnnotatedExecutableType) factory.getAnnotatedType(element);
+        }
 
         FlowExpressionContext context =
                 new FlowExpressionContext(receiver, argReceivers, factory.getContext());
@@ -218,6 +278,9 @@ public class DependentTypesHelper {
         // is not on a type that was substituted for a type variable.
 
         standardizeDoNotUseLocals(context, currentPath, viewpointAdaptedType);
+        if (key != null) {
+            viewpointAdaptedCache.put(key, viewpointAdaptedType);
+        }
         new ViewpointAdaptedCopier().visit(viewpointAdaptedType, typeFromUse);
     }
 
@@ -774,6 +837,53 @@ public class DependentTypesHelper {
         }
     }
 
+    /**
+     * Determines how the dependent type annotations in a type depend on the use of the type: not
+     * at all if there are none, and on the arguments of the use if any expression may refer to a
+     * formal parameter.
+     */
+    private class ExpressionDependenceClassifier
+            extends AnnotatedTypeScanner<ExpressionDependence, Void> {
+        @Override
+        protected ExpressionDependence scan(AnnotatedTypeMirror type, Void aVoid) {
+            if (type == null) {
+                return ExpressionDependence.NONE;
+            }
+            ExpressionDependence result = ExpressionDependence.NONE;
+            for (AnnotationMirror am : type.getAnnotations()) {
+                if (isExpressionAnno(am)) {
+                    result = reduce(result, classify(am));
+                }
+            }
+            return reduce(result, super.scan(type, aVoid));
+        }
+
+        private ExpressionDependence classify(AnnotationMirror am) {
+            for (String element : getListOfExpressionElements(am)) {
+                List<String> value =
+                        AnnotationUtils.getElementValueArray(am, element, String.class, true);
+                for (String v : value) {
+                    if (!FlowExpressionParseUtil.parameterIndices(v).isEmpty()) {
+                        return ExpressionDependence.PARAMETERS;
+                    }
+                }
+            }
+            return ExpressionDependence.RECEIVER;
+        }
+
+        @Override
+        protected ExpressionDependence reduce(
+                ExpressionDependence r1, ExpressionDependence r2) {
+            if (r1 == null) {
+                return r2;
+            } else if (r2 == null) {
+                return r1;
+            } else {
+                return r1.compareTo(r2) >= 0 ? r1 : r2;
+            }
+        }
+    }
+
     /**
      * Returns the list of elements of the annotation that are Java expressions, or the empty list
      * if there aren't any.
@@ -6,6 +6,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
@@ -113,15 +114,27 @@ public class DefaultTypeArgumentInference implements TypeArgumentInference {
         final AnnotatedTypeMirror assignedTo = getAssignedTo(expressionTree, typeFactory);
 
         final Set<TypeVariable> targets = TypeArgInferenceUtil.methodTypeToTargets(methodType);
-        final Map<TypeVariable, AnnotatedTypeMirror> inferredArgs =
-                infer(typeFactory, argTypes, assignedTo, methodElem, methodType, targets, true);
-
-        handleNullTypeArguments(
-                typeFactory, methodElem, methodType, argTypes, assignedTo, targets, inferredArgs);
-
-        handleUninferredTypeVariables(typeFactory, methodType, targets, inferredArgs);
-
-        return inferredArgs;
+        try {
+            final Map<TypeVariable, AnnotatedTypeMirror> inferredArgs =
+                    infer(typeFactory, argTypes, assignedTo, methodElem, methodType, targets, true);
+
+            handleNullTypeArguments(
+                    typeFactory,
+                    methodElem,
+                    methodType,
+                    argTypes,
+                    assignedTo,
+                    targets,
+                    inferredArgs);
+
+            handleUninferredTypeVariables(typeFactory, methodType, targets, inferredArgs);
+
+            return inferredArgs;
+        } finally {
+            // The memoized bounds are only valid for this invocation.
+            supertypesSolver.clearMemo();
+            subtypesSolver.clearMemo();
+        }
     }
 
     /**
@@ -320,6 +333,12 @@ public class DefaultTypeArgumentInference implements TypeArgumentInference {
                 createArgumentAFConstraints(
                         typeFactory, argumentTypes, methodType, targets, useNullArguments);
 
+        // If no argument constrains a target and there is no assignment context, then nothing can
+        // be inferred; the uninferred targets are handled by the caller.
+        if (afArgumentConstraints.isEmpty() && assignedTo == null) {
+            return new LinkedHashMap<>();
+        }
+
         //2. Step 2 - Solve the constraints.
         Pair<InferenceResult, InferenceResult> argInference =
                 inferFromArguments(typeFactory, afArgumentConstraints, targets);
@@ -0,0 +1,83 @@
+package org.checkerframework.framework.util.typeinference.solver;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.TreeSet;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.type.TypeVariable;
+import org.checkerframework.framework.type.AnnotatedTypeMirror;
+import org.checkerframework.framework.util.AnnotationMirrorSet;
+import org.checkerframework.javacutil.AnnotationUtils;
+
+/**
+ * Memoizes the bounds that a solver computes from the constraints on a target, e.g. the least upper
+ * bound of all types a target must be a supertype of. While inferring the type arguments of one
+ * method invocation, the same set of constraints is often solved several times, for example once
+ * with and once without the null arguments.
+ *
+ * <p>The keys and the values are copies, because the solvers modify the types they are given and
+ * the bounds they compute. A memo must be cleared after each invocation, because the bounds depend
+ * on the state of the type factory.
+ */
+class BoundsMemo {
+
+    /** Maps the key of a set of constraints to the bound computed for them. */
+    private final Map<List<Object>, AnnotatedTypeMirror> bounds = new HashMap<>();
+
+    /**
+     * Returns the key of the constraints {@code types} on {@code target}. Keys are equal if the
+     * targets are the same and the types are structurally equal, in the same order, and in the
+     * same hierarchies.
+     *
+     * @param target the target whose bound is computed, or null if the bound does not depend on
+     *     it
+     * @param types the types in the constraints, mapped to the hierarchies they constrain
+     * @return the key of the constraints
+     */
+    List<Object> key(TypeVariable target, Map<AnnotatedTypeMirror, AnnotationMirrorSet> types) {
+        final List<Object> key = new ArrayList<>(1 + 2 * types.size());
+        key.add(target);
+        for (Entry<AnnotatedTypeMirror, AnnotationMirrorSet> entry : types.entrySet()) {
+            key.add(entry.getKey().deepCopy());
+
+            final Set<String> hierarchies = new TreeSet<>();
+            for (AnnotationMirror top : entry.getValue()) {
+                hierarchies.add(AnnotationUtils.annotationName(top));
+            }
+            key.add(hierarchies);
+        }
+        return key;
+    }
+
+    /**
+     * Returns a copy of the bound memoized for {@code key}.
+     *
+     * @param key a key created by {@link #key}
+     * @return a copy of the bound for key, or null if there is none
+     */
+    AnnotatedTypeMirror get(List<Object> key) {
+        final AnnotatedTypeMirror bound = bounds.get(key);
+        return bound == null ? null : bound.deepCopy();
+    }
+
+    /**
+     * Memoizes a copy of {@code bound} for {@code key}.
+     *
+     * @param key a key created by {@link #key}
+     * @param bound the bound computed for the constraints of key
+     */
+    void put(List<Object> key, AnnotatedTypeMirror bound) {
+        if (bound != null) {
+            bounds.put(key, bound.deepCopy());
+        }
+    }
+
+    /** Discards all memoized bounds. */
+    void clear() {
+        bounds.clear();
+    }
+}
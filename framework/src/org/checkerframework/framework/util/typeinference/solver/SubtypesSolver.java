@@ -26,6 +26,17 @@ import org.checkerframework.framework.util.typeinference.solver.TargetConstraint
  */
 public class SubtypesSolver {
 
+    /** The greatest lower bounds computed during the current inference. */
+    private final BoundsMemo glbMemo = new BoundsMemo();
+
+    /**
+     * Discards the greatest lower bounds memoized by this solver. Called after inferring the type
+     * arguments of a method invocation.
+     */
+    public void clearMemo() {
+        glbMemo.clear();
+    }
+
     /**
      * Infers type arguments using subtype constraints.
      *
@@ -110,7 +121,12 @@ public class SubtypesSolver {
             } else {
 
                 // GLB all of the types than combine this with the GLB of primary annotation constraints
-                final AnnotatedTypeMirror glbType = GlbUtil.glbAll(subtypes.types, typeFactory);
+                final List<Object> key = glbMemo.key(null, subtypes.types);
+                AnnotatedTypeMirror glbType = glbMemo.get(key);
+                if (glbType == null) {
+                    glbType = GlbUtil.glbAll(subtypes.types, typeFactory);
+                    glbMemo.put(key, glbType);
+                }
                 if (glbType != null) {
                     if (!primaries.isEmpty()) {
                         for (AnnotationMirror top : qualifierHierarchy.getTopAnnotations()) {
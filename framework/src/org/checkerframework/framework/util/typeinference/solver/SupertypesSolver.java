@@ -33,6 +33,17 @@ import org.checkerframework.javacutil.ErrorReporter;
  */
 public class SupertypesSolver {
 
+    /** The least upper bounds computed during the current inference. */
+    private final BoundsMemo lubMemo = new BoundsMemo();
+
+    /**
+     * Discards the least upper bounds memoized by this solver. Called after inferring the type
+     * arguments of a method invocation.
+     */
+    public void clearMemo() {
+        lubMemo.clear();
+    }
+
     /**
      * Infers type arguments using supertype constraints.
      *
@@ -256,8 +267,12 @@ public class SupertypesSolver {
             solution.addPrimaries(target, lubOfPrimaries);
 
             if (subtypesOfTarget.keySet().size() > 0) {
-                final AnnotatedTypeMirror lub =
-                        leastUpperBound(target, typeFactory, subtypesOfTarget);
+                final List<Object> key = lubMemo.key(target, subtypesOfTarget);
+                AnnotatedTypeMirror lub = lubMemo.get(key);
+                if (lub == null) {
+                    lub = leastUpperBound(target, typeFactory, subtypesOfTarget);
+                    lubMemo.put(key, lub);
+                }
                 final AnnotationMirrorSet effectiveLubAnnos =
                         new AnnotationMirrorSet(lub.getEffectiveAnnotations());
 
@@ -0,0 +1,42 @@
+import testlib.flowexpression.qual.FlowExp;
+
+// Expressions that the regex-based flow expression parser could not handle.
+public class ParserSyntax {
+    static class Node {
+        Node y;
+        Node z;
+    }
+
+    int[] a = {1, 2};
+    int[] b = {0, 1};
+    Node x = new Node();
+
+    Node f(Object o) {
+        return x;
+    }
+
+    void nestedArrayAccess(
+            @FlowExp("a[b[0]]") Object p, @FlowExp("this.a[this.b[b[1]]]") Object q) {}
+
+    void callArgumentWithDots(
+            @FlowExp("f(x.y).z") Object p, @FlowExp("f(f(x.y).z).y.z") Object q) {}
+
+    void whitespace(
+            @FlowExp(" a [ b [ 0 ] ] ") Object p,
+            @FlowExp("f( x . y ) . z") Object q,
+            @FlowExp("this . a . length") Object r) {}
+
+    void integerLiterals(@FlowExp("2147483647") Object p, @FlowExp("2147483648L") Object q) {}
+
+    //:: error: (expression.unparsable.type.invalid)
+    void intOutOfRange(@FlowExp("2147483648") Object p) {}
+
+    //:: error: (expression.unparsable.type.invalid)
+    void longOutOfRange(@FlowExp("9223372036854775808L") Object p) {}
+
+    void packagePrefix(@FlowExp("java.lang.Math.PI") Object p) {}
+
+    // A package and class name is only matched at the start of a member select chain.
+    //:: error: (expression.unparsable.type.invalid)
+    void packagePrefixAfterReceiver(@FlowExp("x.java.lang.Math.PI") Object p) {}
+}
@@ -0,0 +1,26 @@
+package tests;
+
+import java.io.File;
+import java.util.List;
+import org.checkerframework.framework.test.CheckerFrameworkPerDirectoryTest;
+import org.junit.runners.Parameterized.Parameters;
+import testlib.aggregate.AggregateOfCompoundChecker;
+
+/** Runs the aggregate tests with the component checkers sharing their CFGs. */
+public class AggregateSharedCFGsTest extends CheckerFrameworkPerDirectoryTest {
+
+    public AggregateSharedCFGsTest(List<File> testFiles) {
+        super(
+                testFiles,
+                AggregateOfCompoundChecker.class,
+                "aggregate",
+                "-Anomsgtext",
+                "-AresolveReflection",
+                "-AshareCFGs");
+    }
+
+    @Parameters
+    public static String[] getTestDirs() {
+        return new String[] {"aggregate"};
+    }
+}
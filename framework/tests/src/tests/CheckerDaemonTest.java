@@ -0,0 +1,153 @@
+package tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.checkerframework.framework.util.CheckerDaemon;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/** Runs compilations in a {@link CheckerDaemon}. */
+public class CheckerDaemonTest {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    /** The directory of the port file, the source files, and the class files. */
+    private File directory;
+
+    /** The port file of the daemon. */
+    private File portFile;
+
+    @Before
+    public void createDirectory() throws IOException {
+        directory = Files.createTempDirectory("checker-daemon-test").toFile();
+        portFile = new File(directory, "daemon");
+    }
+
+    @After
+    public void stopDaemon() {
+        CheckerDaemon.stop(portFile);
+    }
+
+    /** Returns the command that starts a JVM for the daemon, with the given extra options. */
+    private static List<String> jvmCommand(String... options) {
+        File javaHome = new File(System.getProperty("java.home"));
+        String classpath = System.getProperty("java.class.path");
+        File toolsJar = new File(javaHome.getParentFile(), "lib" + File.separator + "tools.jar");
+        if (toolsJar.isFile()) {
+            classpath = classpath + File.pathSeparator + toolsJar.getPath();
+        }
+        List<String> command = new ArrayList<>();
+        command.add(new File(new File(javaHome, "bin"), "java").getPath());
+        command.addAll(Arrays.asList(options));
+        command.add("-cp");
+        command.add(classpath);
+        return command;
+    }
+
+    /** Writes a source file into {@link #directory}. */
+    private File writeSource(String className, String contents) throws IOException {
+        File file = new File(directory, className + ".java");
+        try (FileWriter writer = new FileWriter(file)) {
+            writer.write(contents);
+        }
+        return file;
+    }
+
+    /** Compiles {@code source} in the daemon and returns its exit status. */
+    private int compile(List<String> jvmCommand, File source, ByteArrayOutputStream err) {
+        File classes = new File(directory, "classes");
+        classes.mkdirs();
+        List<String> args =
+                Arrays.asList("-proc:none", "-d", classes.getPath(), source.getPath());
+        Integer exitStatus =
+                CheckerDaemon.compile(
+                        portFile, jvmCommand, Collections.<File>emptyList(), args, err);
+        assertNotNull("the daemon did not run the compilation", exitStatus);
+        return exitStatus;
+    }
+
+    private String readPortFile() throws IOException {
+        return new String(Files.readAllBytes(portFile.toPath()), UTF_8).trim();
+    }
+
+    @Test
+    public void roundTrip() throws IOException {
+        File good = writeSource("Good", "class Good {}");
+        File bad = writeSource("Bad", "class Bad { int i = \"not an int\"; }");
+
+        ByteArrayOutputStream err = new ByteArrayOutputStream();
+        assertEquals(0, compile(jvmCommand(), good, err));
+        assertTrue(new File(directory, "classes" + File.separator + "Good.class").isFile());
+        String daemon = readPortFile();
+
+        err.reset();
+        assertNotEquals(0, compile(jvmCommand(), bad, err));
+        assertTrue(new String(err.toByteArray(), UTF_8).contains("Bad.java"));
+        // The same daemon ran both compilations.
+        assertEquals(daemon, readPortFile());
+    }
+
+    @Test
+    public void configurationChange() throws IOException {
+        File good = writeSource("Good", "class Good {}");
+        ByteArrayOutputStream err = new ByteArrayOutputStream();
+        assertEquals(0, compile(jvmCommand(), good, err));
+        String oldDaemon = readPortFile();
+
+        // Other JVM options require another daemon, which replaces the old one.
+        assertEquals(0, compile(jvmCommand("-Dchecker.daemon.test=true"), good, err));
+        String newDaemon = readPortFile();
+        assertNotEquals(oldDaemon, newDaemon);
+
+        assertEquals(0, compile(jvmCommand("-Dchecker.daemon.test=true"), good, err));
+        assertEquals(newDaemon, readPortFile());
+    }
+
+    @Test
+    public void requiresSecret() throws IOException {
+        File good = writeSource("Good", "class Good {}");
+        assertEquals(0, compile(jvmCommand(), good, new ByteArrayOutputStream()));
+
+        if (portFile.toPath().getFileSystem().supportedFileAttributeViews().contains("posix")) {
+            assertEquals(
+                    PosixFilePermissions.fromString("rw-------"),
+                    Files.getPosixFilePermissions(portFile.toPath()));
+        }
+
+        String[] contents = readPortFile().split(" ");
+        String secret = contents[1];
+        char[] wrongSecret = new char[secret.length()];
+        Arrays.fill(wrongSecret, '0');
+        assertFalse(secret.equals(new String(wrongSecret)));
+        try (Socket socket =
+                new Socket(InetAddress.getByName(null), Integer.parseInt(contents[0]))) {
+            socket.getOutputStream().write(new String(wrongSecret).getBytes(UTF_8));
+            socket.getOutputStream().flush();
+            // The daemon closes the connection without reading a request.
+            InputStream in = socket.getInputStream();
+            assertEquals(-1, in.read());
+        }
+
+        // The daemon still serves clients that know the secret.
+        assertEquals(0, compile(jvmCommand(), good, new ByteArrayOutputStream()));
+    }
+}
@@ -0,0 +1,204 @@
+package tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.sun.tools.javac.processing.JavacProcessingEnvironment;
+import com.sun.tools.javac.util.Context;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.AnnotationMirror;
+import org.checkerframework.framework.type.CompactAnnotationSet;
+import org.checkerframework.framework.util.AnnotationBuilder;
+import org.checkerframework.javacutil.AnnotationUtils;
+import org.checkerframework.javacutil.ErrorReporter;
+import org.junit.Test;
+import testlib.util.AnnoWithStringArg;
+import testlib.util.Encrypted;
+import testlib.util.PolyEncrypted;
+import testlib.util.TestChecker;
+
+/**
+ * Tests {@link CompactAnnotationSet}: its transitions between zero, one and several annotations,
+ * and its behavior when it is modified during iteration.
+ */
+public class CompactAnnotationSetTest {
+
+    private final AnnotationMirror encrypted;
+    private final AnnotationMirror polyEncrypted;
+    private final AnnotationMirror stringArgA;
+    private final AnnotationMirror stringArgB;
+
+    public CompactAnnotationSetTest() {
+        ProcessingEnvironment env = JavacProcessingEnvironment.instance(new Context());
+        ErrorReporter.setHandler(new TestChecker());
+        encrypted = AnnotationUtils.fromClass(env.getElementUtils(), Encrypted.class);
+        polyEncrypted = AnnotationUtils.fromClass(env.getElementUtils(), PolyEncrypted.class);
+        stringArgA = stringArg(env, "a");
+        stringArgB = stringArg(env, "b");
+    }
+
+    private static AnnotationMirror stringArg(ProcessingEnvironment env, String value) {
+        AnnotationBuilder builder = new AnnotationBuilder(env, AnnoWithStringArg.class);
+        builder.setValue("value", value);
+        return builder.build();
+    }
+
+    /** Returns the elements of the set in iteration order. */
+    private static List<AnnotationMirror> elements(Set<AnnotationMirror> set) {
+        return new ArrayList<>(set);
+    }
+
+    /** Asserts that the set holds exactly the expected annotations, in the given order. */
+    private static void assertElements(Set<AnnotationMirror> set, AnnotationMirror... expected) {
+        assertEquals(expected.length, set.size());
+        assertEquals(expected.length == 0, set.isEmpty());
+        assertEquals(Arrays.asList(expected), elements(set));
+        for (AnnotationMirror anno : expected) {
+            assertTrue(set.contains(anno));
+        }
+        Set<AnnotationMirror> reference = AnnotationUtils.createAnnotationSet();
+        reference.addAll(Arrays.asList(expected));
+        assertEquals(reference, set);
+        assertEquals(reference.hashCode(), set.hashCode());
+    }
+
+    @Test
+    public void empty() {
+        Set<AnnotationMirror> set = new CompactAnnotationSet();
+        assertElements(set);
+        assertFalse(set.contains(encrypted));
+        assertFalse(set.remove(encrypted));
+        assertFalse(set.iterator().hasNext());
+    }
+
+    @Test(expected = NoSuchElementException.class)
+    public void nextOnEmpty() {
+        new CompactAnnotationSet().iterator().next();
+    }
+
+    @Test
+    public void zeroToOneToZero() {
+        Set<AnnotationMirror> set = new CompactAnnotationSet();
+        assertTrue(set.add(encrypted));
+        assertElements(set, encrypted);
+        assertFalse(set.add(encrypted));
+        assertElements(set, encrypted);
+        assertFalse(set.remove(polyEncrypted));
+        assertElements(set, encrypted);
+        assertTrue(set.remove(encrypted));
+        assertElements(set);
+    }
+
+    @Test
+    public void oneToManyToOne() {
+        Set<AnnotationMirror> set = new CompactAnnotationSet();
+        set.add(polyEncrypted);
+        set.add(encrypted);
+        set.add(stringArgB);
+        set.add(stringArgA);
+        List<AnnotationMirror> sorted = elements(set);
+        Set<AnnotationMirror> reference = AnnotationUtils.createAnnotationSet();
+        reference.addAll(sorted);
+        assertEquals(new ArrayList<>(reference), sorted);
+        assertEquals(4, set.size());
+
+        assertFalse(set.add(stringArgA));
+        assertEquals(4, set.size());
+
+        assertTrue(set.remove(stringArgA));
+        assertTrue(set.remove(encrypted));
+        assertTrue(set.remove(stringArgB));
+        assertElements(set, polyEncrypted);
+    }
+
+    @Test
+    public void clear() {
+        Set<AnnotationMirror> set = new CompactAnnotationSet();
+        set.add(encrypted);
+        set.add(polyEncrypted);
+        set.clear();
+        assertElements(set);
+        set.add(stringArgA);
+        assertElements(set, stringArgA);
+    }
+
+    @Test
+    public void removeDuringIteration() {
+        Set<AnnotationMirror> set = new CompactAnnotationSet();
+        set.add(encrypted);
+        set.add(polyEncrypted);
+        set.add(stringArgA);
+        List<AnnotationMirror> before = elements(set);
+
+        List<AnnotationMirror> seen = new ArrayList<>();
+        for (AnnotationMirror anno : set) {
+            seen.add(anno);
+            // The iterator keeps iterating over the annotations that were in the set.
+            set.remove(anno);
+        }
+        assertEquals(before, seen);
+        assertElements(set);
+    }
+
+    @Test
+    public void addDuringIteration() {
+        Set<AnnotationMirror> set = new CompactAnnotationSet();
+        set.add(encrypted);
+        List<AnnotationMirror> seen = new ArrayList<>();
+        for (AnnotationMirror anno : set) {
+            seen.add(anno);
+            set.add(polyEncrypted);
+        }
+        assertEquals(Arrays.asList(encrypted), seen);
+        assertEquals(2, set.size());
+    }
+
+    @Test
+    public void iteratorRemove() {
+        Set<AnnotationMirror> set = new CompactAnnotationSet();
+        set.add(encrypted);
+        set.add(polyEncrypted);
+        set.add(stringArgA);
+        AnnotationMirror first = elements(set).get(0);
+        AnnotationMirror last = elements(set).get(2);
+
+        Iterator<AnnotationMirror> iterator = set.iterator();
+        while (iterator.hasNext()) {
+            AnnotationMirror anno = iterator.next();
+            if (anno != first && anno != last) {
+                iterator.remove();
+            }
+        }
+        assertElements(set, first, last);
+
+        iterator = set.iterator();
+        while (iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+        }
+        assertElements(set);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void iteratorRemoveTwice() {
+        Set<AnnotationMirror> set = new CompactAnnotationSet();
+        set.add(encrypted);
+        set.add(polyEncrypted);
+        Iterator<AnnotationMirror> iterator = set.iterator();
+        iterator.next();
+        iterator.remove();
+        iterator.remove();
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void addNull() {
+        new CompactAnnotationSet().add(null);
+    }
+}
@@ -0,0 +1,22 @@
+package tests;
+
+import java.io.File;
+import org.checkerframework.framework.test.CheckerFrameworkPerFileTest;
+import org.junit.runners.Parameterized.Parameters;
+import testlib.util.TestChecker;
+
+/**
+ * Runs the tests of {@link FrameworkTest} with -AatfInternCachedTypes, so that the results with
+ * canonical cached types can be compared with the results computed with copies.
+ */
+public class FrameworkInternCachedTypesTest extends CheckerFrameworkPerFileTest {
+
+    public FrameworkInternCachedTypesTest(File testFile) {
+        super(testFile, TestChecker.class, "framework", "-Anomsgtext", "-AatfInternCachedTypes");
+    }
+
+    @Parameters
+    public static String[] getTestDirs() {
+        return new String[] {"framework", "all-systems"};
+    }
+}
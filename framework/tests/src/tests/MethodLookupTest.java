@@ -0,0 +1,133 @@
+package tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import com.sun.tools.javac.processing.JavacProcessingEnvironment;
+import com.sun.tools.javac.util.Context;
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.ExecutableElement;
+import org.checkerframework.framework.source.SourceChecker;
+import org.checkerframework.javacutil.ErrorReporter;
+import org.checkerframework.javacutil.MethodSignatureIndex;
+import org.checkerframework.javacutil.TreeUtils;
+import org.junit.Test;
+import testlib.util.TestChecker;
+
+/** Tests the lookup of methods by name and signature in {@link TreeUtils}. */
+public class MethodLookupTest {
+
+    private final ProcessingEnvironment env;
+
+    public MethodLookupTest() {
+        env = JavacProcessingEnvironment.instance(new Context());
+        ErrorReporter.setHandler(new TestChecker());
+    }
+
+    @Test
+    public void overloadsByParameterTypes() {
+        ExecutableElement nextInt = TreeUtils.getMethod("java.util.Random", "nextInt", env);
+        ExecutableElement nextIntBound =
+                TreeUtils.getMethod("java.util.Random", "nextInt", env, "int");
+        assertEquals(0, nextInt.getParameters().size());
+        assertEquals(1, nextIntBound.getParameters().size());
+        assertNotSame(nextInt, nextIntBound);
+
+        assertSame(nextInt, TreeUtils.getMethod("java.util.Random", "nextInt", 0, env));
+        assertSame(nextIntBound, TreeUtils.getMethod("java.util.Random", "nextInt", 1, env));
+    }
+
+    @Test
+    public void erasedAndArrayParameterTypes() {
+        ExecutableElement toArray =
+                TreeUtils.getMethod("java.util.List", "toArray", env, "java.lang.Object[]");
+        assertEquals(1, toArray.getParameters().size());
+        ExecutableElement add =
+                TreeUtils.getMethod("java.util.List", "add", env, "int", "java.lang.Object");
+        assertEquals(2, add.getParameters().size());
+    }
+
+    @Test
+    public void methodList() {
+        List<ExecutableElement> methods =
+                TreeUtils.getMethodList("java.lang.Math", "max", 2, env);
+        assertEquals(4, methods.size());
+    }
+
+    /**
+     * For every method of the classes that checkers look up, the lookup by parameter types finds a
+     * method among those with the same name and number of parameters that {@link
+     * TreeUtils#getMethodList} returns, and the overloads with the same number of parameters are
+     * found as distinct methods. The parameter types are taken from reflection, independently of
+     * the index.
+     */
+    @Test
+    public void signaturesAgreeWithMethodList() throws ClassNotFoundException {
+        String[] typeNames = {
+            "java.lang.Math",
+            "java.lang.String",
+            "java.lang.StringBuilder",
+            "java.util.Random",
+            "java.util.List",
+            "java.util.Map",
+            "java.util.regex.MatchResult",
+            "java.util.regex.Pattern"
+        };
+        for (String typeName : typeNames) {
+            Map<String, Set<ExecutableElement>> found = new HashMap<>();
+            for (Method method : Class.forName(typeName).getDeclaredMethods()) {
+                if (method.isSynthetic() || method.isBridge()) {
+                    continue;
+                }
+                Class<?>[] parameterTypes = method.getParameterTypes();
+                String[] paramTypes = new String[parameterTypes.length];
+                for (int i = 0; i < parameterTypes.length; i++) {
+                    paramTypes[i] = parameterTypes[i].getCanonicalName();
+                }
+                ExecutableElement exec =
+                        TreeUtils.getMethod(typeName, method.getName(), env, paramTypes);
+                List<ExecutableElement> sameArity =
+                        TreeUtils.getMethodList(
+                                typeName, method.getName(), paramTypes.length, env);
+                assertTrue(method.toString(), sameArity.contains(exec));
+                String key = method.getName() + "/" + paramTypes.length;
+                if (!found.containsKey(key)) {
+                    found.put(key, new HashSet<ExecutableElement>());
+                }
+                assertTrue(method.toString(), found.get(key).add(exec));
+            }
+            for (Map.Entry<String, Set<ExecutableElement>> entry : found.entrySet()) {
+                String[] nameAndArity = entry.getKey().split("/");
+                assertEquals(
+                        typeName + "." + entry.getKey(),
+                        new HashSet<>(
+                                TreeUtils.getMethodList(
+                                        typeName,
+                                        nameAndArity[0],
+                                        Integer.parseInt(nameAndArity[1]),
+                                        env)),
+                        entry.getValue());
+            }
+        }
+    }
+
+    @Test
+    public void oneIndexPerCompilation() {
+        assertSame(MethodSignatureIndex.instance(env), MethodSignatureIndex.instance(env));
+        ProcessingEnvironment otherEnv = JavacProcessingEnvironment.instance(new Context());
+        assertNotSame(MethodSignatureIndex.instance(env), MethodSignatureIndex.instance(otherEnv));
+    }
+
+    @Test(expected = SourceChecker.CheckerError.class)
+    public void noSuchSignature() {
+        TreeUtils.getMethod("java.util.Random", "nextInt", env, "long");
+    }
+}
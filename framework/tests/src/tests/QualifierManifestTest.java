@@ -0,0 +1,85 @@
+package tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+
+import java.lang.annotation.Annotation;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import org.checkerframework.common.aliasing.AliasingChecker;
+import org.checkerframework.common.basetype.BaseTypeChecker;
+import org.checkerframework.common.reflection.ClassValChecker;
+import org.checkerframework.common.util.report.ReportChecker;
+import org.checkerframework.common.value.ValueChecker;
+import org.checkerframework.framework.type.AnnotationClassLoader;
+import org.checkerframework.framework.type.QualifierManifest;
+import org.junit.Test;
+
+/**
+ * Tests that the qualifier manifests that the build writes into the {@code qual} packages of the
+ * framework list the same qualifiers, in the same order, as a scan of the packages.
+ */
+public class QualifierManifestTest {
+
+    /**
+     * Loads the qualifiers of a checker from its manifest or by scanning its {@code qual} package.
+     * Every qualifier is supported, so that no processing environment is needed.
+     */
+    private static class Loader extends AnnotationClassLoader {
+        private final boolean useManifest;
+
+        Loader(BaseTypeChecker checker, boolean useManifest) {
+            super(checker);
+            this.useManifest = useManifest;
+        }
+
+        @Override
+        protected Set<String> getAnnotationNamesFromManifest() {
+            return useManifest ? super.getAnnotationNamesFromManifest() : null;
+        }
+
+        @Override
+        protected boolean isSupportedAnnotationClass(Class<? extends Annotation> annoClass) {
+            return true;
+        }
+    }
+
+    private static void checkManifest(BaseTypeChecker checker) {
+        String manifest =
+                checker.getClass().getPackage().getName().replace('.', '/')
+                        + "/qual/"
+                        + QualifierManifest.FILE_NAME;
+        assertNotNull(
+                "no manifest " + manifest,
+                checker.getClass().getClassLoader().getResource(manifest));
+
+        List<Class<? extends Annotation>> fromManifest =
+                new ArrayList<>(new Loader(checker, true).getLoadedAnnotationClasses());
+        List<Class<? extends Annotation>> fromScan =
+                new ArrayList<>(new Loader(checker, false).getLoadedAnnotationClasses());
+        assertFalse(fromScan.isEmpty());
+        assertEquals(manifest, fromScan, fromManifest);
+    }
+
+    @Test
+    public void aliasing() {
+        checkManifest(new AliasingChecker());
+    }
+
+    @Test
+    public void reflection() {
+        checkManifest(new ClassValChecker());
+    }
+
+    @Test
+    public void report() {
+        checkManifest(new ReportChecker());
+    }
+
+    @Test
+    public void value() {
+        checkManifest(new ValueChecker());
+    }
+}
@@ -0,0 +1,195 @@
+package tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import org.checkerframework.common.subtyping.SubtypingChecker;
+import org.checkerframework.framework.test.CompilationResult;
+import org.checkerframework.framework.test.TestConfiguration;
+import org.checkerframework.framework.test.TestConfigurationBuilder;
+import org.checkerframework.framework.test.TestUtilities;
+import org.checkerframework.framework.test.TypecheckExecutor;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the {@code -AresultCache} option: the diagnostics of a class are reported again from the
+ * cache if nothing that the class depends on has changed, and the class is type-checked again
+ * otherwise.
+ */
+public class ResultCacheTest {
+
+    /** The directory of the source files, the class files, and the cache. */
+    private File directory;
+
+    /** The cache directory. */
+    private File cacheDir;
+
+    @Before
+    public void createDirectories() throws IOException {
+        directory = Files.createTempDirectory("result-cache-test").toFile();
+        cacheDir = new File(directory, "cache");
+    }
+
+    /** Writes a source file into {@link #directory}. */
+    private File writeSource(String className, String... lines) throws IOException {
+        File file = new File(directory, className + ".java");
+        try (FileWriter writer = new FileWriter(file)) {
+            for (String line : lines) {
+                writer.write(line);
+                writer.write(System.lineSeparator());
+            }
+        }
+        return file;
+    }
+
+    /** Writes Base, whose method accept takes an @Encrypted parameter if encrypted is true. */
+    private File writeBase(boolean encrypted) throws IOException {
+        return writeSource(
+                "Base",
+                "import testlib.util.Encrypted;",
+                "class Base {",
+                "    void accept(" + (encrypted ? "@Encrypted " : "") + "String s) {}",
+                "}");
+    }
+
+    /** Compiles the files with the Subtyping Checker and the result cache. */
+    private Set<String> compile(File... files) {
+        return compile(Collections.<String>emptyList(), files);
+    }
+
+    /** Compiles the files with the Subtyping Checker, the result cache, and extra options. */
+    private Set<String> compile(List<String> extraOptions, File... files) {
+        List<String> options =
+                new ArrayList<>(
+                        Arrays.asList(
+                                "-Anomsgtext",
+                                "-Aquals=testlib.util.Encrypted,testlib.util.PolyEncrypted,org.checkerframework.framework.qual.Unqualified",
+                                "-AresultCache=" + cacheDir.getAbsolutePath()));
+        options.addAll(extraOptions);
+        TestConfiguration config =
+                TestConfigurationBuilder.getDefaultConfigurationBuilder(
+                                null,
+                                new File(directory, "classes"),
+                                TestConfigurationBuilder.getDefaultClassPath(),
+                                Arrays.asList(files),
+                                Collections.singletonList(SubtypingChecker.class.getName()),
+                                options,
+                                false)
+                        .validateThenBuild(true);
+        TestUtilities.ensureDirectoryExists(new File(directory, "classes"));
+        CompilationResult result = new TypecheckExecutor().compile(config);
+        return TestUtilities.diagnosticsToStrings(result.getDiagnostics(), true);
+    }
+
+    /** Returns the entries of the cache. */
+    private List<File> cacheEntries() {
+        List<File> entries = new ArrayList<>(Arrays.asList(cacheDir.listFiles()));
+        Collections.sort(entries);
+        return entries;
+    }
+
+    @Test
+    public void replaysUnchangedClasses() throws IOException {
+        File base = writeBase(false);
+        File client =
+                writeSource(
+                        "Client",
+                        "import testlib.util.Encrypted;",
+                        "class Client extends Base {",
+                        "    @Override",
+                        "    void accept(@Encrypted String s) {}",
+                        "    @Encrypted String leak(String s) {",
+                        "        return s;",
+                        "    }",
+                        "}");
+
+        Set<String> first = compile(base, client);
+        assertEquals(2, first.size());
+        List<File> entries = cacheEntries();
+        assertFalse(entries.isEmpty());
+        for (File entry : entries) {
+            assertTrue(entry.setLastModified(0));
+        }
+
+        Set<String> second = compile(base, client);
+        assertEquals(first, second);
+        // The entries were read, not type-checked and stored again.
+        assertEquals(entries, cacheEntries());
+        for (File entry : entries) {
+            assertEquals(0, entry.lastModified());
+        }
+    }
+
+    @Test
+    public void changedSuperclassOfSuperclass() throws IOException {
+        File base = writeBase(false);
+        File middle = writeSource("Middle", "class Middle extends Base {}");
+        // Client does not name Base, which declares the method that Client overrides.
+        File client =
+                writeSource(
+                        "Client",
+                        "import testlib.util.Encrypted;",
+                        "class Client extends Middle {",
+                        "    @Override",
+                        "    void accept(@Encrypted String s) {}",
+                        "}");
+
+        Set<String> first = compile(base, middle, client);
+        assertEquals(1, first.size());
+        assertTrue(first.iterator().next().contains("override.param.invalid"));
+
+        writeBase(true);
+        assertEquals(Collections.<String>emptySet(), compile(base, middle, client));
+
+        writeBase(false);
+        assertEquals(first, compile(base, middle, client));
+    }
+
+    @Test
+    public void reportsStubWarningsOnCacheHits() throws IOException {
+        File stub = new File(directory, "missing.astub");
+        try (FileWriter writer = new FileWriter(stub)) {
+            writer.write("package java.lang;" + System.lineSeparator());
+            writer.write("class NoSuchClass {}" + System.lineSeparator());
+        }
+        List<String> options =
+                Arrays.asList("-Astubs=" + stub.getAbsolutePath(), "-AstubWarnIfNotFound");
+        File base = writeBase(false);
+        File client =
+                writeSource(
+                        "Client",
+                        "import testlib.util.Encrypted;",
+                        "class Client extends Base {",
+                        "    @Override",
+                        "    void accept(@Encrypted String s) {}",
+                        "}");
+
+        Set<String> first = compile(options, base, client);
+        boolean stubWarning = false;
+        for (String diagnostic : first) {
+            stubWarning |= diagnostic.contains("java.lang.NoSuchClass");
+        }
+        assertTrue(first.toString(), stubWarning);
+        List<File> entries = cacheEntries();
+        for (File entry : entries) {
+            assertTrue(entry.setLastModified(0));
+        }
+
+        // The stub warning is issued again although no class is type-checked.
+        assertEquals(first, compile(options, base, client));
+        for (File entry : entries) {
+            assertEquals(0, entry.lastModified());
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package tests;
+
+import java.io.File;
+import java.util.List;
+import org.checkerframework.framework.test.CheckerFrameworkPerDirectoryTest;
+import org.junit.runners.Parameterized.Parameters;
+
+/**
+ * Runs the tests of {@link SubtypingEncryptedTest} with -AatfDoNotCache, so that the results of
+ * the type factory's caches can be compared with the results computed without them.
+ */
+public class SubtypingEncryptedNoCacheTest extends CheckerFrameworkPerDirectoryTest {
+
+    public SubtypingEncryptedNoCacheTest(List<File> testFiles) {
+        super(
+                testFiles,
+                org.checkerframework.common.subtyping.SubtypingChecker.class,
+                "subtyping",
+                "-Anomsgtext",
+                "-AatfDoNotCache",
+                "-Aquals=testlib.util.Encrypted,testlib.util.PolyEncrypted,org.checkerframework.framework.qual.Unqualified");
+    }
+
+    @Parameters
+    public static String[] getTestDirs() {
+        return new String[] {"subtyping"};
+    }
+}
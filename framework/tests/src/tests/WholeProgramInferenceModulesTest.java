@@ -0,0 +1,177 @@
+package tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import annotations.Annotation;
+import annotations.el.AClass;
+import annotations.el.AScene;
+import annotations.io.IndexFileParser;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.checkerframework.common.wholeprograminference.WholeProgramInferenceScenesHelper;
+import org.checkerframework.framework.test.TestConfiguration;
+import org.checkerframework.framework.test.TestConfigurationBuilder;
+import org.checkerframework.framework.test.TestUtilities;
+import org.checkerframework.framework.test.TypecheckExecutor;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import testlib.wholeprograminference.WholeProgramInferenceTestChecker;
+
+/**
+ * Tests the {@code -AinferModuleDirs} option: the annotations in the .jaif files of the other
+ * modules are merged into the Scene of a class by computing LUBs, and the merged Scene is written
+ * even if this compilation infers nothing new for the class.
+ *
+ * <p>The .jaif files of the modules are produced by inferring types for different versions of the
+ * same class, and moving the resulting .jaif file into a module directory.
+ */
+public class WholeProgramInferenceModulesTest {
+
+    /** The name of the class whose types are inferred. */
+    private static final String CLASS_NAME = "ModuleMerge";
+
+    /** The directory of the source files, the class files, and the module directories. */
+    private File directory;
+
+    /** The .jaif file that each compilation writes for {@link #CLASS_NAME}. */
+    private final File jaif =
+            new File(WholeProgramInferenceScenesHelper.jaifFilesPath, CLASS_NAME + ".jaif");
+
+    @Before
+    public void createDirectory() throws IOException {
+        directory = Files.createTempDirectory("wpi-modules-test").toFile();
+        Files.deleteIfExists(jaif.toPath());
+    }
+
+    @After
+    public void deleteJaif() throws IOException {
+        Files.deleteIfExists(jaif.toPath());
+    }
+
+    /**
+     * Writes {@link #CLASS_NAME}, whose method assign assigns the result of {@code getter} to the
+     * static field {@code field}.
+     */
+    private File writeSource(String field, String getter) throws IOException {
+        File file = new File(directory, CLASS_NAME + ".java");
+        try (FileWriter writer = new FileWriter(file)) {
+            String[] lines = {
+                "import testlib.wholeprograminference.qual.*;",
+                "public class " + CLASS_NAME + " {",
+                "    public static int merged;",
+                "    public static int local;",
+                "    static void assign() {",
+                "        " + field + " = " + getter + "();",
+                "    }",
+                "    static @Sibling1 int getSibling1() {",
+                "        return 0;",
+                "    }",
+                "    static @Sibling2 int getSibling2() {",
+                "        return 0;",
+                "    }",
+                "}"
+            };
+            for (String line : lines) {
+                writer.write(line);
+                writer.write(System.lineSeparator());
+            }
+        }
+        return file;
+    }
+
+    /**
+     * Infers types for {@code source}, reading the .jaif files of the module directories. The
+     * diagnostics are not relevant.
+     */
+    private void infer(File source, File... moduleDirs) {
+        List<String> options = new ArrayList<>(Arrays.asList("-Anomsgtext", "-Ainfer"));
+        if (moduleDirs.length > 0) {
+            StringBuilder dirs = new StringBuilder();
+            for (File moduleDir : moduleDirs) {
+                if (dirs.length() > 0) {
+                    dirs.append(File.pathSeparator);
+                }
+                dirs.append(moduleDir.getAbsolutePath());
+            }
+            options.add("-AinferModuleDirs=" + dirs);
+        }
+        File classes = new File(directory, "classes");
+        TestConfiguration config =
+                TestConfigurationBuilder.getDefaultConfigurationBuilder(
+                                null,
+                                classes,
+                                TestConfigurationBuilder.getDefaultClassPath(),
+                                Collections.singletonList(source),
+                                Collections.singletonList(
+                                        WholeProgramInferenceTestChecker.class.getName()),
+                                options,
+                                false)
+                        .validateThenBuild(true);
+        TestUtilities.ensureDirectoryExists(classes);
+        new TypecheckExecutor().compile(config);
+    }
+
+    /**
+     * Infers types for the version of {@link #CLASS_NAME} that assigns {@code getter()} to {@code
+     * merged}, and moves the .jaif file into a new module directory.
+     */
+    private File inferModule(String moduleName, String getter) throws IOException {
+        infer(writeSource("merged", getter));
+        File moduleDir = new File(directory, moduleName);
+        TestUtilities.ensureDirectoryExists(moduleDir);
+        Files.move(
+                jaif.toPath(),
+                new File(moduleDir, CLASS_NAME + ".jaif").toPath(),
+                StandardCopyOption.REPLACE_EXISTING);
+        return moduleDir;
+    }
+
+    /** Returns the simple names of the annotations on {@code field} in {@link #jaif}. */
+    private List<String> annotationsOnField(String field) throws IOException {
+        assertTrue(jaif.getPath() + " was not written", jaif.exists());
+        AScene scene = new AScene();
+        IndexFileParser.parseFile(jaif.getPath(), scene);
+        AClass aclass = scene.classes.get(CLASS_NAME);
+        List<String> names = new ArrayList<>();
+        for (Annotation anno : aclass.fields.vivify(field).type.tlAnnotationsHere) {
+            String name = anno.def().name;
+            names.add(name.substring(name.lastIndexOf('.') + 1));
+        }
+        Collections.sort(names);
+        return names;
+    }
+
+    @Test
+    public void mergesModulesIntoLub() throws IOException {
+        File module1 = inferModule("module1", "getSibling1");
+        File module2 = inferModule("module2", "getSibling2");
+
+        // This compilation does not assign merged, so its type comes from the modules only.
+        infer(writeSource("local", "getSibling1"), module1, module2);
+        assertEquals(Collections.singletonList("Parent"), annotationsOnField("merged"));
+        assertEquals(Collections.singletonList("Sibling1"), annotationsOnField("local"));
+    }
+
+    @Test
+    public void rewritesSceneChangedOnlyByMerge() throws IOException {
+        File module2 = inferModule("module2", "getSibling2");
+
+        File source = writeSource("merged", "getSibling1");
+        infer(source);
+        assertEquals(Collections.singletonList("Sibling1"), annotationsOnField("merged"));
+
+        // The existing .jaif file is read, and inferring types again adds nothing new to it.
+        // Only the merge with module2 changes the Scene, which must still be written.
+        infer(source, module2);
+        assertEquals(Collections.singletonList("Parent"), annotationsOnField("merged"));
+    }
+}
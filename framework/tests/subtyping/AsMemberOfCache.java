@@ -0,0 +1,60 @@
+import java.util.List;
+import testlib.util.*;
+
+// Accesses the same members through receivers that differ only in their annotations, so
+// the cached result for one receiver must not be reused for the other. Run with and
+// without -AatfDoNotCache.
+class AsMemberOfCache {
+
+    static class Box<T> {
+        T value;
+
+        T get() {
+            return value;
+        }
+
+        void set(T t) {
+            value = t;
+        }
+    }
+
+    static class EncryptedBox extends Box<@Encrypted String> {}
+
+    void fields(Box<@Encrypted String> secret, Box<String> plain) {
+        @Encrypted String s1 = secret.value;
+        //:: error: (assignment.type.incompatible)
+        @Encrypted String p1 = plain.value;
+        @Encrypted String s2 = secret.value;
+        //:: error: (assignment.type.incompatible)
+        @Encrypted String p2 = plain.value;
+    }
+
+    void methods(Box<@Encrypted String> secret, Box<String> plain, String text) {
+        @Encrypted String s1 = secret.get();
+        //:: error: (assignment.type.incompatible)
+        @Encrypted String p1 = plain.get();
+        plain.set(text);
+        //:: error: (argument.type.incompatible)
+        secret.set(text);
+        @Encrypted String s2 = secret.get();
+        //:: error: (assignment.type.incompatible)
+        @Encrypted String p2 = plain.get();
+    }
+
+    void subclass(EncryptedBox secret, Box<String> plain, String text) {
+        @Encrypted String s1 = secret.get();
+        //:: error: (argument.type.incompatible)
+        secret.set(text);
+        //:: error: (assignment.type.incompatible)
+        @Encrypted String p1 = plain.get();
+        @Encrypted String s2 = secret.value;
+    }
+
+    void lists(List<@Encrypted String> secret, List<String> plain) {
+        for (int i = 0; i < 2; i++) {
+            @Encrypted String s = secret.get(i);
+            //:: error: (assignment.type.incompatible)
+            @Encrypted String p = plain.get(i);
+        }
+    }
+}
@@ -0,0 +1,46 @@
+import java.util.List;
+import testlib.util.*;
+
+// Uses type parameters whose bounds refer to themselves several times, so their bounds are
+// initialized more than once. Run with and without -AatfDoNotCache.
+class FBoundedTypeVariables {
+
+    interface Node<N extends Node<N>> {
+        N next();
+
+        @Encrypted String secret();
+    }
+
+    static <T extends Comparable<T>> T max(T a, T b) {
+        return a.compareTo(b) >= 0 ? a : b;
+    }
+
+    static <N extends Node<N>> @Encrypted String walk(N node) {
+        N next = node.next();
+        N nextNext = next.next();
+        return nextNext.secret();
+    }
+
+    static <N extends Node<N>> @Encrypted String leak(N node) {
+        N next = node.next();
+        //:: error: (return.type.incompatible)
+        return next.toString();
+    }
+
+    static <A extends List<B>, B extends List<A>> A mutual(B b) {
+        A a = b.get(0);
+        B b2 = a.get(0);
+        return b2.get(0);
+    }
+
+    void use(String plain) {
+        String s1 = max(plain, plain);
+        String s2 = max(s1, plain);
+    }
+
+    <E extends Enum<E>> void enums(E e1, E e2) {
+        int c = e1.compareTo(e2);
+        E e3 = e1.getDeclaringClass().getEnumConstants()[0];
+        int d = e3.compareTo(e1);
+    }
+}
@@ -0,0 +1,50 @@
+import java.util.ArrayList;
+import java.util.List;
+import testlib.util.*;
+
+// Repeats subtype checks between types that differ only in nested annotations, so a cached
+// result for one pair must not be reused for another. Run with and without -AatfDoNotCache.
+class SubtypeCache {
+
+    void lists(List<@Encrypted String> secret, List<String> plain) {
+        List<@Encrypted String> s1 = secret;
+        //:: error: (assignment.type.incompatible)
+        List<@Encrypted String> p1 = plain;
+        //:: error: (assignment.type.incompatible)
+        List<String> s2 = secret;
+        List<String> p2 = plain;
+
+        List<@Encrypted String> s3 = secret;
+        //:: error: (assignment.type.incompatible)
+        List<@Encrypted String> p3 = plain;
+    }
+
+    void arrays(@Encrypted String[] secret, String[] plain) {
+        @Encrypted String[] s1 = secret;
+        //:: error: (assignment.type.incompatible)
+        @Encrypted String[] p1 = plain;
+        String[] s2 = secret;
+        String[] p2 = plain;
+
+        @Encrypted String[] s3 = secret;
+        //:: error: (assignment.type.incompatible)
+        @Encrypted String[] p3 = plain;
+    }
+
+    void nested(List<List<@Encrypted String>> secret, ArrayList<List<String>> plain) {
+        List<List<@Encrypted String>> s1 = secret;
+        //:: error: (assignment.type.incompatible)
+        List<List<@Encrypted String>> p1 = plain;
+        List<List<String>> p2 = plain;
+        //:: error: (assignment.type.incompatible)
+        List<List<@Encrypted String>> p3 = plain;
+    }
+
+    void primary(@Encrypted String secret, String plain) {
+        for (int i = 0; i < 2; i++) {
+            @Encrypted String s = secret;
+            //:: error: (assignment.type.incompatible)
+            @Encrypted String p = plain;
+        }
+    }
+}
@@ -80,7 +80,7 @@ public abstract class AbstractTypeProcessor extends AbstractProcessor {
      * Method {@link #typeProcessingOver()} must be invoked exactly once, after the last invocation
      * of {@link #typeProcess(TypeElement, TreePath)}.
      */
-    private static boolean hasInvokedTypeProcessingOver = false;
+    private boolean hasInvokedTypeProcessingOver = false;
 
     /** The TaskListener registered for completion of attribution. */
     private final AttributionTaskListener listener = new AttributionTaskListener();
@@ -136,6 +136,18 @@ public abstract class AbstractTypeProcessor extends AbstractProcessor {
      */
     public abstract void typeProcess(TypeElement element, TreePath tree);
 
+    /**
+     * Processes a fully-analyzed class by calling {@link #typeProcess(TypeElement, TreePath)}.
+     * This is the method that is called for each class; subclasses may override it to reuse the
+     * results of an earlier compilation of the class instead.
+     *
+     * @param element element of the analyzed class
+     * @param tree the tree path to the element, with the leaf being a {@link ClassTree}
+     */
+    protected void typeProcessClass(TypeElement element, TreePath tree) {
+        typeProcess(element, tree);
+    }
+
     /**
      * A method to be called once all the classes are processed and no error is reported.
      *
@@ -182,7 +194,7 @@ public abstract class AbstractTypeProcessor extends AbstractProcessor {
             TypeElement elem = e.getTypeElement();
             TreePath p = Trees.instance(processingEnv).getPath(elem);
 
-            typeProcess(elem, p);
+            typeProcessClass(elem, p);
 
             if (!hasInvokedTypeProcessingOver && elements.isEmpty() && log.nerrors == 0) {
                 typeProcessingOver();
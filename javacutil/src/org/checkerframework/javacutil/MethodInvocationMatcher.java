@@ -0,0 +1,113 @@
+package org.checkerframework.javacutil;
+
+import com.sun.source.tree.MethodInvocationTree;
+import com.sun.source.tree.Tree;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Name;
+
+/**
+ * Determines whether a method invocation invokes one of a fixed set of methods or a method that
+ * overrides one of them, like {@link TreeUtils#isMethodInvocation(Tree, ExecutableElement,
+ * ProcessingEnvironment)} does for a single method.
+ *
+ * <p>Most invocations that a checker sees invoke none of the methods it is interested in. A matcher
+ * answers for them by looking up the name of the invoked method in a set, and for the methods
+ * themselves by looking up the invoked element in an identity set. Only for other methods with a
+ * matching name does it determine whether they override one of the methods; the answer is cached
+ * per invoked element.
+ *
+ * <p>A matcher is not synchronized. It should be used by a single checker.
+ */
+public class MethodInvocationMatcher {
+
+    /** The processing environment. */
+    private final ProcessingEnvironment env;
+
+    /** The methods to match. */
+    private final Set<ExecutableElement> methods =
+            Collections.newSetFromMap(new IdentityHashMap<ExecutableElement, Boolean>());
+
+    /** The simple names of the methods to match. */
+    private final Set<Name> names = new HashSet<>();
+
+    /**
+     * Whether each method that has the name of a method to match, but is not itself one of the
+     * methods, overrides one of them.
+     */
+    private final Map<ExecutableElement, Boolean> overrides = new IdentityHashMap<>();
+
+    /**
+     * Creates a matcher for {@code methods}.
+     *
+     * @param env the processing environment
+     * @param methods the methods to match
+     */
+    public MethodInvocationMatcher(
+            ProcessingEnvironment env, Collection<? extends ExecutableElement> methods) {
+        this.env = env;
+        for (ExecutableElement method : methods) {
+            this.methods.add(method);
+            this.names.add(method.getSimpleName());
+        }
+    }
+
+    /**
+     * Creates a matcher for {@code methods}.
+     *
+     * @param env the processing environment
+     * @param methods the methods to match
+     */
+    public MethodInvocationMatcher(ProcessingEnvironment env, ExecutableElement... methods) {
+        this(env, Arrays.asList(methods));
+    }
+
+    /**
+     * Returns true if {@code tree} is an invocation of one of the methods of this matcher or of a
+     * method that overrides one of them.
+     *
+     * @param tree a tree
+     * @return true if tree invokes one of the methods
+     */
+    public boolean matches(Tree tree) {
+        if (!(tree instanceof MethodInvocationTree)) {
+            return false;
+        }
+        return matches(TreeUtils.elementFromUse((MethodInvocationTree) tree));
+    }
+
+    /**
+     * Returns true if {@code invoked} is one of the methods of this matcher or overrides one of
+     * them.
+     *
+     * @param invoked a method
+     * @return true if invoked is or overrides one of the methods
+     */
+    public boolean matches(ExecutableElement invoked) {
+        if (methods.contains(invoked)) {
+            return true;
+        }
+        if (!names.contains(invoked.getSimpleName())) {
+            return false;
+        }
+        Boolean result = overrides.get(invoked);
+        if (result == null) {
+            result = false;
+            for (ExecutableElement method : methods) {
+                if (ElementUtils.isMethod(invoked, method, env)) {
+                    result = true;
+                    break;
+                }
+            }
+            overrides.put(invoked, result);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,173 @@
+package org.checkerframework.javacutil;
+
+import com.sun.tools.javac.processing.JavacProcessingEnvironment;
+import com.sun.tools.javac.util.Context;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Types;
+
+/**
+ * An index of the methods of the classes that checkers look up by name, such as {@code
+ * java.lang.Math} or {@code java.util.Collection}. The methods of a class are indexed by their
+ * simple names the first time a method of the class is looked up, so that later lookups in the same
+ * class do not scan its members again.
+ *
+ * <p>There is one index per compilation; use {@link #instance(ProcessingEnvironment)} to obtain it.
+ * The index is stored in the javac {@link Context} of the compilation, so that it is discarded
+ * together with the elements it refers to.
+ *
+ * @see TreeUtils#getMethod(String, String, int, ProcessingEnvironment)
+ * @see TreeUtils#getMethod(String, String, ProcessingEnvironment, String...)
+ */
+public class MethodSignatureIndex {
+
+    /** The key of the index in the javac {@link Context}. */
+    private static final Context.Key<MethodSignatureIndex> indexKey = new Context.Key<>();
+
+    /**
+     * Returns the index for {@code env}, creating it if necessary.
+     *
+     * @param env the processing environment
+     * @return the index of the methods of the classes of env
+     */
+    public static MethodSignatureIndex instance(ProcessingEnvironment env) {
+        Context context = ((JavacProcessingEnvironment) env).getContext();
+        MethodSignatureIndex index = context.get(indexKey);
+        if (index == null) {
+            index = new MethodSignatureIndex(env);
+            context.put(indexKey, index);
+        }
+        return index;
+    }
+
+    /** The processing environment whose classes are indexed. */
+    private final ProcessingEnvironment env;
+
+    /**
+     * Maps the name of each class that was looked up to a map from the simple name of a method to
+     * the methods with that name, in the order they are declared.
+     */
+    private final Map<String, Map<String, List<ExecutableElement>>> methodsByClass =
+            new HashMap<>();
+
+    private MethodSignatureIndex(ProcessingEnvironment env) {
+        this.env = env;
+    }
+
+    /**
+     * Returns the methods named {@code methodName} that are declared in the class {@code
+     * typeName}, in the order they are declared.
+     *
+     * @param typeName the canonical name of a class
+     * @param methodName the simple name of a method
+     * @return the methods named methodName in typeName, or the empty list if there is none
+     */
+    private List<ExecutableElement> methodsNamed(String typeName, String methodName) {
+        Map<String, List<ExecutableElement>> methods = methodsByClass.get(typeName);
+        if (methods == null) {
+            methods = new HashMap<>();
+            TypeElement typeElt = env.getElementUtils().getTypeElement(typeName);
+            if (typeElt != null) {
+                for (ExecutableElement exec :
+                        ElementFilter.methodsIn(typeElt.getEnclosedElements())) {
+                    String name = exec.getSimpleName().toString();
+                    List<ExecutableElement> named = methods.get(name);
+                    if (named == null) {
+                        named = new ArrayList<>(1);
+                        methods.put(name, named);
+                    }
+                    named.add(exec);
+                }
+            }
+            methodsByClass.put(typeName, methods);
+        }
+        List<ExecutableElement> named = methods.get(methodName);
+        return named == null ? Collections.<ExecutableElement>emptyList() : named;
+    }
+
+    /**
+     * Returns the methods named {@code methodName} with {@code params} parameters that are declared
+     * in the class {@code typeName}, in the order they are declared.
+     *
+     * @param typeName the canonical name of a class
+     * @param methodName the simple name of a method
+     * @param params the number of parameters
+     * @return the matching methods, which may be none
+     */
+    public List<ExecutableElement> getMethods(
+            String typeName, String methodName, int params) {
+        List<ExecutableElement> result = new ArrayList<>();
+        for (ExecutableElement exec : methodsNamed(typeName, methodName)) {
+            if (exec.getParameters().size() == params) {
+                result.add(exec);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the method named {@code methodName} that is declared in the class {@code typeName}
+     * and whose parameters have the erased types {@code paramTypes}.
+     *
+     * @param typeName the canonical name of a class
+     * @param methodName the simple name of a method
+     * @param paramTypes the canonical names of the erasures of the parameter types, for example
+     *     {@code "int"}, {@code "java.lang.Object"}, or {@code "java.lang.Object[]"}
+     * @return the method with the given signature, or null if there is none
+     */
+    public ExecutableElement getMethod(
+            String typeName, String methodName, String... paramTypes) {
+        Types types = env.getTypeUtils();
+        for (ExecutableElement exec : methodsNamed(typeName, methodName)) {
+            List<? extends VariableElement> params = exec.getParameters();
+            if (params.size() != paramTypes.length) {
+                continue;
+            }
+            boolean matches = true;
+            for (int i = 0; i < paramTypes.length && matches; i++) {
+                matches = erasedName(types, params.get(i).asType()).equals(paramTypes[i]);
+            }
+            if (matches) {
+                return exec;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the canonical name of the erasure of {@code type}, for example {@code "int"}, {@code
+     * "java.util.Map.Entry"}, or {@code "java.lang.Object[]"}. Unlike {@code toString}, the result
+     * does not contain the type annotations of type, such as those of an annotated JDK.
+     *
+     * @param types the type utilities
+     * @param type a parameter type
+     * @return the canonical name of the erasure of type
+     */
+    private static String erasedName(Types types, TypeMirror type) {
+        TypeMirror erased = types.erasure(type);
+        switch (erased.getKind()) {
+            case ARRAY:
+                return erasedName(types, ((ArrayType) erased).getComponentType()) + "[]";
+            case DECLARED:
+                return ((TypeElement) ((DeclaredType) erased).asElement())
+                        .getQualifiedName()
+                        .toString();
+            default:
+                if (erased.getKind().isPrimitive()) {
+                    return types.getPrimitiveType(erased.getKind()).toString();
+                }
+                return erased.toString();
+        }
+    }
+}
@@ -32,7 +32,7 @@ import com.sun.source.util.Trees;
 import com.sun.tools.javac.code.Flags;
 import com.sun.tools.javac.code.Symbol.MethodSymbol;
 import com.sun.tools.javac.tree.JCTree;
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.EnumSet;
 import java.util.List;
 import java.util.Set;
@@ -704,33 +704,52 @@ public final class TreeUtils {
      * Returns the ExecutableElement for a method declaration of methodName, in class typeName, with
      * params parameters.
      *
-     * <p>TODO: to precisely resolve method overloading, we should use parameter types and not just
-     * the number of parameters!
+     * <p>If several methods have that many parameters, the first one declared is returned. Use
+     * {@link #getMethod(String, String, ProcessingEnvironment, String...)} to resolve method
+     * overloading precisely.
      */
     public static ExecutableElement getMethod(
             String typeName, String methodName, int params, ProcessingEnvironment env) {
-        TypeElement typeElt = env.getElementUtils().getTypeElement(typeName);
-        for (ExecutableElement exec : ElementFilter.methodsIn(typeElt.getEnclosedElements())) {
-            if (exec.getSimpleName().contentEquals(methodName)
-                    && exec.getParameters().size() == params) {
-                return exec;
-            }
+        List<ExecutableElement> methods =
+                MethodSignatureIndex.instance(env).getMethods(typeName, methodName, params);
+        if (methods.isEmpty()) {
+            ErrorReporter.errorAbort("TreeUtils.getMethod: shouldn't be here!");
+            return null; // dead code
         }
-        ErrorReporter.errorAbort("TreeUtils.getMethod: shouldn't be here!");
-        return null; // dead code
+        return methods.get(0);
+    }
+
+    /**
+     * Returns the ExecutableElement for the method declaration of methodName, in class typeName,
+     * whose parameters have the erased types paramTypes.
+     *
+     * @param typeName the canonical name of a class
+     * @param methodName the simple name of the method
+     * @param env the processing environment
+     * @param paramTypes the canonical names of the erasures of the parameter types, for example
+     *     {@code "int"} or {@code "java.lang.Object[]"}
+     * @return the method with the given signature
+     */
+    public static ExecutableElement getMethod(
+            String typeName, String methodName, ProcessingEnvironment env, String... paramTypes) {
+        ExecutableElement method =
+                MethodSignatureIndex.instance(env).getMethod(typeName, methodName, paramTypes);
+        if (method == null) {
+            ErrorReporter.errorAbort(
+                    "TreeUtils.getMethod: no method "
+                            + typeName
+                            + "."
+                            + methodName
+                            + " with parameter types "
+                            + Arrays.toString(paramTypes));
+            return null; // dead code
+        }
+        return method;
     }
 
     public static List<ExecutableElement> getMethodList(
             String typeName, String methodName, int params, ProcessingEnvironment env) {
-        List<ExecutableElement> methods = new ArrayList<>();
-        TypeElement typeElement = env.getElementUtils().getTypeElement(typeName);
-        for (ExecutableElement exec : ElementFilter.methodsIn(typeElement.getEnclosedElements())) {
-            if (exec.getSimpleName().contentEquals(methodName)
-                    && exec.getParameters().size() == params) {
-                methods.add(exec);
-            }
-        }
-        return methods;
+        return MethodSignatureIndex.instance(env).getMethods(typeName, methodName, params);
     }
 
     /**